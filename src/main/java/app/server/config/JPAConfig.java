@@ -1,15 +1,18 @@
 package app.server.config;
 
+import app.server.repository.RowValueFunctions;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.hibernate.SessionFactory;
 import org.hibernate.jpa.HibernatePersistenceProvider;
 import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.orm.hibernate5.HibernateExceptionTranslator;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -17,6 +20,8 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 @Configuration
@@ -30,10 +35,29 @@ public class JPAConfig {
     private static final String PROP_DATABASE_PASSWORD = "db.password";
     private static final String PROP_DATABASE_URL = "db.url";
     private static final String PROP_DATABASE_USERNAME = "db.username";
+    private static final String PROP_POOL_MINIMUM_IDLE = "db.pool.minimum-idle";
+    private static final String PROP_POOL_MAXIMUM_SIZE = "db.pool.maximum-size";
+    private static final String PROP_POOL_CONNECTION_TIMEOUT = "db.pool.connection-timeout-ms";
+    private static final String PROP_POOL_IDLE_TIMEOUT = "db.pool.idle-timeout-ms";
+    private static final String PROP_POOL_MAX_LIFETIME = "db.pool.max-lifetime-ms";
+    private static final String PROP_STATEMENT_CACHE_QUERIES = "db.statement-cache.queries";
+    private static final String PROP_STATEMENT_CACHE_SIZE = "db.statement-cache.size-mib";
+    private static final String PROP_STATEMENT_PREPARE_THRESHOLD = "db.statement-cache.prepare-threshold";
     private static final String PROP_HIBERNATE_DIALECT = "hibernate.dialect";
     private static final String PROP_HIBERNATE_SHOW_SQL = "hibernate.show_sql";
     private static final String PROP_ENTITYMANAGER_PACKAGES_TO_SCAN = "entitymanager.packages.to.scan";
     private static final String PROP_HIBERNATE_HBM2DDL_AUTO = "hibernate.hbm2ddl.auto";
+    private static final String PROP_HIBERNATE_GENERATE_STATISTICS = "hibernate.generate_statistics";
+    private static final String PROP_HIBERNATE_DEFAULT_BATCH_FETCH_SIZE = "hibernate.default_batch_fetch_size";
+    private static final String PROP_HIBERNATE_JDBC_BATCH_SIZE = "hibernate.jdbc.batch_size";
+    private static final String PROP_HIBERNATE_ORDER_INSERTS = "hibernate.order_inserts";
+    private static final String PROP_HIBERNATE_ORDER_UPDATES = "hibernate.order_updates";
+    private static final String PROP_HIBERNATE_POOLED_OPTIMIZER = "hibernate.id.optimizer.pooled.preferred";
+    private static final String PROP_HIBERNATE_METADATA_BUILDER_CONTRIBUTOR = "hibernate.metadata_builder_contributor";
+    private static final String PROP_REWRITE_BATCHED_INSERTS = "db.rewrite-batched-inserts";
+    private static final String PROP_REPLICA_URLS = "db.replica.urls";
+    private static final String POOL_NAME = "semantic-network-pool";
+    private static final String REPLICA_POOL_NAME_PREFIX = "semantic-network-replica-";
 
     private final Environment env;
 
@@ -41,15 +65,67 @@ public class JPAConfig {
         this.env = env;
     }
 
+    /**
+     * Пул соединений. Серверные подготовленные выражения кэшируются драйвером PostgreSQL в каждом соединении:
+     * выражение готовится на сервере после prepare-threshold выполнений. Если заданы db.replica.urls, транзакции
+     * только для чтения направляются на реплики (см. {@link ReplicaRoutingDataSource})
+     */
     @Bean
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(env.getRequiredProperty(PROP_DATABASE_DRIVER));
-        dataSource.setUrl(env.getRequiredProperty(PROP_DATABASE_URL));
-        dataSource.setUsername(env.getRequiredProperty(PROP_DATABASE_USERNAME));
-        dataSource.setPassword(env.getRequiredProperty(PROP_DATABASE_PASSWORD));
+        HikariConfig config = getPoolConfig(POOL_NAME, env.getRequiredProperty(PROP_DATABASE_URL));
+        config.setMetricsTrackerFactory(poolMetrics());
+        HikariDataSource primary = new HikariDataSource(config);
+
+        String[] replicaUrls = getReplicaUrls();
+        if (replicaUrls.length == 0) {
+            return primary;
+        }
+
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.length);
+        for (int i = 0; i < replicaUrls.length; i++) {
+            HikariConfig replicaConfig = getPoolConfig(REPLICA_POOL_NAME_PREFIX + i, replicaUrls[i].trim());
+            replicaConfig.setReadOnly(true);
+            replicas.add(new HikariDataSource(replicaConfig));
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    private HikariConfig getPoolConfig(String poolName, String url) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(env.getRequiredProperty(PROP_DATABASE_DRIVER));
+        config.setJdbcUrl(url);
+        config.setUsername(env.getRequiredProperty(PROP_DATABASE_USERNAME));
+        config.setPassword(env.getRequiredProperty(PROP_DATABASE_PASSWORD));
+
+        config.setMinimumIdle(env.getProperty(PROP_POOL_MINIMUM_IDLE, Integer.class, 5));
+        config.setMaximumPoolSize(env.getProperty(PROP_POOL_MAXIMUM_SIZE, Integer.class, 20));
+        config.setConnectionTimeout(env.getProperty(PROP_POOL_CONNECTION_TIMEOUT, Long.class, 30_000L));
+        config.setIdleTimeout(env.getProperty(PROP_POOL_IDLE_TIMEOUT, Long.class, 600_000L));
+        config.setMaxLifetime(env.getProperty(PROP_POOL_MAX_LIFETIME, Long.class, 1_800_000L));
+
+        config.addDataSourceProperty("preparedStatementCacheQueries",
+                env.getProperty(PROP_STATEMENT_CACHE_QUERIES, "256"));
+        config.addDataSourceProperty("preparedStatementCacheSizeMiB",
+                env.getProperty(PROP_STATEMENT_CACHE_SIZE, "5"));
+        config.addDataSourceProperty("prepareThreshold", env.getProperty(PROP_STATEMENT_PREPARE_THRESHOLD, "5"));
+        // пакет однотипных INSERT драйвер отправляет одним многострочным INSERT
+        config.addDataSourceProperty("reWriteBatchedInserts", env.getProperty(PROP_REWRITE_BATCHED_INSERTS, "true"));
+        // по имени пула соединение видно в pg_stat_activity
+        config.addDataSourceProperty("ApplicationName", poolName);
+
+        return config;
+    }
 
-        return dataSource;
+    private String[] getReplicaUrls() {
+        String urls = env.getProperty(PROP_REPLICA_URLS, "");
+        return urls.isBlank() ? new String[0] : urls.split(",");
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
     }
 
     @Bean
@@ -66,9 +142,14 @@ public class JPAConfig {
         return em.getObject();
     }
 
+    /**
+     * Потокобезопасный прокси: каждый вызов направляется в EntityManager текущей транзакции, а вне её - во временный
+     * EntityManager, закрываемый после вызова. Контекст персистентности не переживает транзакцию, поэтому всё, что
+     * нужно ответу, загружается внутри неё (графы загрузки при expand)
+     */
     @Bean
-    public EntityManager entityManager(EntityManagerFactory entityManagerFactory ) {
-        return entityManagerFactory.createEntityManager();
+    public EntityManager entityManager(EntityManagerFactory entityManagerFactory) {
+        return SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
     }
 
     @Bean
@@ -89,6 +170,17 @@ public class JPAConfig {
         properties.put(PROP_HIBERNATE_DIALECT, env.getRequiredProperty(PROP_HIBERNATE_DIALECT));
         properties.put(PROP_HIBERNATE_SHOW_SQL, env.getRequiredProperty(PROP_HIBERNATE_SHOW_SQL));
         properties.put(PROP_HIBERNATE_HBM2DDL_AUTO, env.getRequiredProperty(PROP_HIBERNATE_HBM2DDL_AUTO));
+        properties.put(PROP_HIBERNATE_GENERATE_STATISTICS,
+                env.getProperty(PROP_HIBERNATE_GENERATE_STATISTICS, "false"));
+        properties.put(PROP_HIBERNATE_DEFAULT_BATCH_FETCH_SIZE,
+                env.getProperty(PROP_HIBERNATE_DEFAULT_BATCH_FETCH_SIZE, "50"));
+        properties.put(PROP_HIBERNATE_JDBC_BATCH_SIZE, env.getProperty(PROP_HIBERNATE_JDBC_BATCH_SIZE, "50"));
+        properties.put(PROP_HIBERNATE_ORDER_INSERTS, env.getProperty(PROP_HIBERNATE_ORDER_INSERTS, "true"));
+        properties.put(PROP_HIBERNATE_ORDER_UPDATES, env.getProperty(PROP_HIBERNATE_ORDER_UPDATES, "true"));
+        // значение последовательности - начало блока идентификаторов (см. db/pooled_sequences.sql)
+        properties.put(PROP_HIBERNATE_POOLED_OPTIMIZER, "pooled-lo");
+        // сравнение строк для курсора выборки по фильтру (см. IRepository)
+        properties.put(PROP_HIBERNATE_METADATA_BUILDER_CONTRIBUTOR, RowValueFunctions.class.getName());
         return properties;
     }
 
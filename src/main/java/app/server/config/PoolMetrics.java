@@ -0,0 +1,84 @@
+package app.server.config;
+
+import app.server.util.PoolStatistics;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики пула соединений: текущее количество активных, простаивающих соединений и ожидающих потоков, а также
+ * гистограмма времени ожидания соединения (по верхним границам интервалов в миллисекундах)
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private static final long[] WAIT_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1_000, 5_000};
+
+    private final LongAdder[] waits = new LongAdder[WAIT_BOUNDS_MILLIS.length + 1];
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile PoolStats poolStats;
+
+    public PoolMetrics() {
+        for (int i = 0; i < waits.length; i++) {
+            waits[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                recordWait(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    private void recordWait(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < WAIT_BOUNDS_MILLIS.length && millis > WAIT_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+
+        waits[bucket].increment();
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulate(nanos);
+    }
+
+    public PoolStatistics getStatistics() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long count = 0;
+        for (int i = 0; i < waits.length; i++) {
+            long bucketCount = waits[i].sum();
+            histogram.put(i < WAIT_BOUNDS_MILLIS.length ? String.valueOf(WAIT_BOUNDS_MILLIS[i]) : "+Inf", bucketCount);
+            count += bucketCount;
+        }
+
+        double meanWaitMillis = count == 0 ? 0 : waitNanos.sum() / (double) count / 1_000_000;
+        double maxWaitMillis = maxWaitNanos.get() / 1_000_000.0;
+
+        PoolStats stats = poolStats;
+        if (stats == null) {
+            return new PoolStatistics(0, 0, 0, 0, 0, histogram, meanWaitMillis, maxWaitMillis, timeouts.sum());
+        }
+
+        return new PoolStatistics(stats.getActiveConnections(), stats.getIdleConnections(), stats.getPendingThreads(),
+                stats.getTotalConnections(), stats.getMaxConnections(), histogram, meanWaitMillis, maxWaitMillis,
+                timeouts.sum());
+    }
+}
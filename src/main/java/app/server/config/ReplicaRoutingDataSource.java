@@ -0,0 +1,120 @@
+package app.server.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник соединений с основной БД и репликами: соединения транзакций только для чтения
+ * ({@code @Transactional(readOnly = true)} и {@link #readOnly()}) берутся из пулов реплик по кругу, остальные - из
+ * пула основной БД. Физическое соединение запрашивается при первом выражении, когда признак readOnly транзакции
+ * уже известен, а не при её начале.
+ * Реплика может отставать, поэтому чтения, результат которых кэшируется или проверяется перед записью, выполняются
+ * в области {@link #primary()} - она важнее признака readOnly транзакции (в том числе транзакций методов
+ * SimpleJpaRepository, помеченного readOnly на уровне класса)
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    /**
+     * Область, в которой источник соединений выбирается явно, а не по признаку readOnly транзакции
+     */
+    public static class RoutingScope implements AutoCloseable {
+
+        private final Boolean previous;
+
+        private RoutingScope(Boolean previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                READ_ONLY.remove();
+            } else {
+                READ_ONLY.set(previous);
+            }
+        }
+    }
+
+    private static final String PRIMARY = "primary";
+    /**
+     * TRUE - реплика, FALSE - основная БД, нет значения - по признаку readOnly транзакции
+     */
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return getLookupKey();
+            }
+        };
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Соединения, запрошенные текущим потоком до закрытия области, берутся из пулов реплик (собственные
+     * EntityManager потоковых списков вне транзакций Spring)
+     */
+    public static RoutingScope readOnly() {
+        return route(Boolean.TRUE);
+    }
+
+    /**
+     * Соединения, запрошенные текущим потоком до закрытия области, берутся из пула основной БД, даже в транзакции
+     * только для чтения
+     */
+    public static RoutingScope primary() {
+        return route(Boolean.FALSE);
+    }
+
+    private static RoutingScope route(Boolean readOnly) {
+        RoutingScope scope = new RoutingScope(READ_ONLY.get());
+        READ_ONLY.set(readOnly);
+        return scope;
+    }
+
+    private Object getLookupKey() {
+        Boolean readOnly = READ_ONLY.get();
+        if (readOnly == null) {
+            readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+
+        if (replicas.isEmpty() || !readOnly) {
+            return PRIMARY;
+        }
+
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
@@ -3,19 +3,25 @@ package app.server.controller;
 import app.server.domain.Concept;
 import app.server.resource.ConceptResource;
 import app.server.service.ConceptJPAService;
+import app.server.service.TextSearchService;
+import app.server.util.BatchItemResult;
+import app.server.util.CursorPage;
+import app.server.util.JsonArrayWriter;
 import app.server.util.QueryData;
+import app.server.util.SearchMode;
 import app.server.validators.ConceptResourceValidator;
 import app.server.validators.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Spliterator;
 import java.util.stream.Collectors;
 
 import static app.server.validators.ExceptionParser.getCode;
@@ -26,55 +32,93 @@ public class ConceptController implements ExtendedController<ConceptResource, Lo
 
     private final ConceptJPAService jpaService;
     private final ConceptResourceValidator validator;
+    private final TextSearchService searchService;
+    private final ObjectMapper objectMapper;
 
-    public ConceptController(ConceptJPAService jpaService, ConceptResourceValidator validator) {
+    public ConceptController(ConceptJPAService jpaService, ConceptResourceValidator validator,
+                             TextSearchService searchService, ObjectMapper objectMapper) {
         this.jpaService = jpaService;
         this.validator = validator;
+        this.searchService = searchService;
+        this.objectMapper = objectMapper;
     }
 
     @Override
     @PostMapping("/filter")
     public List<ConceptResource> getAll(@RequestBody(required = false) QueryData queryData,
-                                HttpServletRequest request, HttpServletResponse response) {
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
         if (queryData == null) {
-            return getAll(false, request, response);
+            getAll(false, request, response);
+            return null;
+        }
+
+        if (queryData.getFields() != null && !queryData.getFields().isEmpty()) {
+            return getFields(queryData);
         }
 
         Boolean expand = queryData.getExpand() == null ? Boolean.FALSE : queryData.getExpand();
 
-        return jpaService.getAll(queryData).stream().map(concept -> new ConceptResource(concept, expand))
+        CursorPage<Concept> page = getPage(queryData, jpaService::getAll);
+        if (page.getNextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+
+        return page.getItems().stream().map(concept -> new ConceptResource(concept, expand))
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/search")
+    public List<ConceptResource> search(@RequestParam("query") String query,
+                                        @RequestParam(required = false, defaultValue = "substring") SearchMode mode,
+                                        @RequestParam(required = false, defaultValue = "20") Integer limit,
+                                        @RequestParam(required = false, defaultValue = "false") Boolean expand) {
+        if (query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "search_query_blank");
+        }
+
+        if (limit <= 0 || limit > TextSearchService.MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "search_limit_incorrect");
+        }
+
+        return searchService.searchConcepts(query, mode, limit, expand).stream()
+                .map(concept -> new ConceptResource(concept, expand))
                 .collect(Collectors.toList());
     }
 
     @Override
     @GetMapping("/count")
-    public Long countAll(HttpServletRequest request, HttpServletResponse response) {
-        return jpaService.countAll();
+    public Long countAll(@RequestParam(required = false, defaultValue = "false") Boolean approximate,
+                         HttpServletRequest request, HttpServletResponse response) {
+        return jpaService.countAll(approximate);
     }
 
     @Override
-    @GetMapping
-    public List<ConceptResource> getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
-                                        HttpServletRequest request, HttpServletResponse response) {
-        Spliterator<Concept> spliterator = jpaService.getAll();
-        long size = spliterator.getExactSizeIfKnown();
-        if (size > Integer.MAX_VALUE) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, ErrorCode.COLLECTION_BIG_SIZE.name());
-        }
-        List<ConceptResource> concepts = createList(size);
-        spliterator.forEachRemaining(concept -> concepts.add(new ConceptResource(concept, expand)));
+    @PostMapping("/count")
+    public Long countAll(@RequestBody QueryData queryData, HttpServletRequest request, HttpServletResponse response) {
+        return jpaService.countAll(queryData);
+    }
+
+    @GetMapping(params = "fields")
+    public List<ConceptResource> getAll(@RequestParam List<String> fields) {
+        QueryData queryData = new QueryData();
+        queryData.setFields(fields);
+        return getFields(queryData);
+    }
 
-        return concepts;
+    private List<ConceptResource> getFields(QueryData queryData) {
+        Map<String, String> fieldPaths = getFieldPaths(queryData.getFields(), ConceptResource.FIELDS);
+        return toResources(getPage(queryData, data -> jpaService.getAll(data, fieldPaths)), fieldPaths,
+                ConceptResource::new);
     }
 
-    private List<ConceptResource> createList(long size) {
-        List<ConceptResource> concepts;
-        if (size == -1) {
-            concepts = new ArrayList<>();
-        } else {
-            concepts = new ArrayList<>((int) size);
+    @Override
+    @GetMapping
+    public void getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (JsonArrayWriter writer = getArrayWriter(objectMapper, response)) {
+            jpaService.forEach(expand, concept -> writer.write(new ConceptResource(concept, expand)));
+            writer.finish();
         }
-        return concepts;
     }
 
     @Override
@@ -86,11 +130,20 @@ public class ConceptController implements ExtendedController<ConceptResource, Lo
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorCode.PK_NULL.name());
         }
 
-        Optional<Concept> optionalConcept = jpaService.get(id);
+        Optional<Concept> optionalConcept = jpaService.get(id, expand);
         Concept concept = optionalConcept.orElse(null);
         return concept == null ? null : new ConceptResource(concept, expand);
     }
 
+    /**
+     * Пакетное создание: ответ содержит id созданной сущности или код ошибки для каждого элемента пакета
+     */
+    @PostMapping("/batch")
+    public List<BatchItemResult<Long>> postBatch(@RequestBody List<ConceptResource> conceptResources,
+                                                 HttpServletRequest request, HttpServletResponse response) {
+        return saveBatch(conceptResources, validator, ConceptResource::toEntity, jpaService);
+    }
+
     @Override
     @PostMapping
     public ConceptResource post(@RequestBody ConceptResource conceptResource,
@@ -109,15 +162,16 @@ public class ConceptController implements ExtendedController<ConceptResource, Lo
         }
     }
 
+    /**
+     * При expand записанная сущность перечитывается одним запросом по графу загрузки, чтобы связанные сущности
+     * в ответе были загружены из БД; удалённая сущность возвращается как есть
+     */
     private ConceptResource getConceptResource(Concept concept, Boolean expand) {
-        ConceptResource resource = new ConceptResource(concept, expand);
-        Long parentId = resource.getParentId();
-        if (expand && parentId != null) {
-            Optional<Concept> parent = jpaService.get(parentId);
-            parent.ifPresent(value -> resource.setParent(new ConceptResource(value, false)));
+        if (expand) {
+            concept = jpaService.get(concept.getId(), true).orElse(concept);
         }
 
-        return resource;
+        return new ConceptResource(concept, expand);
     }
 
     @Override
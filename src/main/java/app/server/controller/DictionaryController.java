@@ -1,27 +1,36 @@
 package app.server.controller;
 
 import app.server.domain.Language;
-import app.server.service.DictionaryService;
+import app.server.service.DictionaryCache;
+import app.server.service.DictionaryVersion;
 import app.server.service.LanguageJPAService;
 import app.server.util.FileFormat;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/dictionary")
 public class DictionaryController {
 
-    private final DictionaryService service;
+    private final DictionaryCache cache;
+    private final DictionaryVersion dictionaryVersion;
     private final LanguageJPAService languageJPAService;
 
-    public DictionaryController(DictionaryService service, LanguageJPAService languageJPAService) {
-        this.service = service;
+    public DictionaryController(DictionaryCache cache, DictionaryVersion dictionaryVersion,
+                                LanguageJPAService languageJPAService) {
+        this.cache = cache;
+        this.dictionaryVersion = dictionaryVersion;
         this.languageJPAService = languageJPAService;
     }
 
@@ -37,7 +46,7 @@ public class DictionaryController {
                                              @RequestParam("format") FileFormat fileFormat,
                                              @RequestParam(value = "fileName", required = false,
                                                      defaultValue = "dictionary") String fileName,
-                                             HttpServletResponse response)
+                                             WebRequest request, HttpServletResponse response)
             throws IOException {
         Optional<Language> from = languageJPAService.get(fromId);
         if (from.isEmpty()) {
@@ -51,13 +60,24 @@ public class DictionaryController {
             return null;
         }
 
-        Resource resource = service.generate(from.get(), to.get(), fileFormat);
+        DictionaryVersion.Version version = dictionaryVersion.get();
+        String eTag = fromId + "-" + toId + "-" + fileFormat.name() + "-" + version;
+        if (request.checkNotModified(eTag, version.getTimestamp())) {
+            return null;
+        }
+
+        FileChannel file = cache.open(from.get(), to.get(), fileFormat, version);
         if (fileName == null) {
             fileName = "dictionary";
         }
         fileName += "." + fileFormat.name();
 
-        return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + fileName + "\"").body(resource);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .eTag(eTag)
+                .lastModified(version.getTimestamp())
+                .contentLength(file.size())
+                .body(new InputStreamResource(Channels.newInputStream(file)));
     }
 }
@@ -0,0 +1,101 @@
+package app.server.controller;
+
+import app.server.domain.Language;
+import app.server.service.ExportJobService;
+import app.server.service.LanguageJPAService;
+import app.server.util.ExportJob;
+import app.server.util.ExportJobStatus;
+import app.server.util.ExportMetrics;
+import app.server.util.FileFormat;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/dictionary/jobs")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+    private final LanguageJPAService languageJPAService;
+
+    public ExportJobController(ExportJobService exportJobService, LanguageJPAService languageJPAService) {
+        this.exportJobService = exportJobService;
+        this.languageJPAService = languageJPAService;
+    }
+
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<ExportJob> submit(@RequestParam("fromId") Integer fromId, @RequestParam("toId") Integer toId,
+                                            @RequestParam("format") FileFormat fileFormat,
+                                            @RequestParam(value = "fileName", required = false,
+                                                    defaultValue = "dictionary") String fileName,
+                                            HttpServletResponse response) throws IOException {
+        Optional<Language> from = languageJPAService.get(fromId);
+        if (from.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Некорректный fromId!");
+            return null;
+        }
+
+        Optional<Language> to = languageJPAService.get(toId);
+        if (to.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Некорректный toId!");
+            return null;
+        }
+
+        ExportJob job = exportJobService.submit(from.get(), to.get(), fileFormat, fileName);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/{id}")
+    @ResponseBody
+    public ExportJob get(@PathVariable("id") String id) {
+        return getJob(id);
+    }
+
+    @GetMapping("/{id}/file")
+    @ResponseBody
+    public ResponseEntity<Resource> download(@PathVariable("id") String id) throws IOException {
+        ExportJob job = getJob(id);
+        if (job.getStatus() != ExportJobStatus.DONE) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "export_job_not_finished");
+        }
+
+        FileChannel file;
+        try {
+            file = exportJobService.openFile(job);
+        } catch (NoSuchFileException exception) {
+            // файл мог быть вытеснен из кэша более новой версией словаря
+            throw new ResponseStatusException(HttpStatus.GONE, "export_job_file_expired");
+        }
+
+        String fileName = job.getFileName() + "." + job.getFormat().name();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(file.size())
+                .body(new InputStreamResource(Channels.newInputStream(file)));
+    }
+
+    @GetMapping("/metrics")
+    @ResponseBody
+    public ExportMetrics metrics() {
+        return exportJobService.getMetrics();
+    }
+
+    private ExportJob getJob(String id) {
+        return exportJobService.get(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "export_job_not_found"));
+    }
+}
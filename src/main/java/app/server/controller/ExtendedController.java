@@ -1,20 +1,163 @@
 package app.server.controller;
 
+import app.server.service.JPAService;
+import app.server.util.BatchItemResult;
 import app.server.util.QueryData;
+import app.server.validators.ResourceValidator;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.persistence.Tuple;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static app.server.validators.ExceptionParser.getCode;
 
 public interface ExtendedController<T, ID> extends IController<T, ID> {
 
+    /**
+     * Заголовок ответа с токеном продолжения для следующей страницы выборки по фильтру
+     */
+    String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Наибольшее количество элементов в одном запросе пакетной записи
+     */
+    int MAX_BATCH_SIZE = 10_000;
+
+    /**
+     * Выборка по фильтру; без тела запроса совпадает с выборкой всех ресурсов и пишется в ответ
+     * потоком (см. {@link IController#getAll(Boolean, HttpServletRequest, HttpServletResponse)})
+     */
     @ResponseBody
     List<T> getAll(@RequestBody(required = false) QueryData queryData,
-                   HttpServletRequest request, HttpServletResponse response);
+                   HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+    /**
+     * @param approximate вернуть оценку количества по статистике планировщика вместо точного COUNT(*)
+     */
+    @ResponseBody
+    Long countAll(@RequestParam(required = false, defaultValue = "false") Boolean approximate,
+                  HttpServletRequest request, HttpServletResponse response);
 
+    /**
+     * Точное количество строк, удовлетворяющих фильтрам столбцов queryData
+     */
     @ResponseBody
-    Long countAll(HttpServletRequest request, HttpServletResponse response);
+    Long countAll(@RequestBody QueryData queryData, HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * Пути в сущности для запрошенных полей ресурса (в порядке запроса, без повторов)
+     *
+     * @param resourceFields допустимые поля ресурса и соответствующие им пути в сущности
+     */
+    default Map<String, String> getFieldPaths(List<String> fields, Map<String, String> resourceFields) {
+        Map<String, String> fieldPaths = new LinkedHashMap<>();
+        for (String field: fields) {
+            String path = resourceFields.get(field);
+            if (path == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fields_incorrect");
+            }
+            fieldPaths.put(field, path);
+        }
+
+        return fieldPaths;
+    }
+
+    /**
+     * Выборка по фильтру. Некорректный токен продолжения - ошибка запроса: репозиторий сообщает о нём
+     * {@link IllegalArgumentException}, которую прокси репозитория может обернуть в
+     * {@link InvalidDataAccessApiUsageException}
+     */
+    default <R> R getPage(QueryData queryData, Function<QueryData, R> query) {
+        try {
+            return query.apply(queryData);
+        } catch (IllegalArgumentException | InvalidDataAccessApiUsageException exception) {
+            boolean cursorIncorrect = queryData.getCursor() != null && (exception instanceof IllegalArgumentException
+                    || exception.getCause() instanceof IllegalArgumentException);
+            if (!cursorIncorrect) {
+                throw exception;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor_incorrect", exception);
+        }
+    }
+
+    /**
+     * Заполняет ресурсы значениями кортежей, элементы которых названы именами полей ресурса
+     */
+    default List<T> toResources(List<Tuple> tuples, Map<String, String> fieldPaths, Supplier<T> resourceFactory) {
+        List<T> resources = new ArrayList<>(tuples.size());
+        for (Tuple tuple: tuples) {
+            T resource = resourceFactory.get();
+            BeanWrapper wrapper = new BeanWrapperImpl(resource);
+            for (String field: fieldPaths.keySet()) {
+                wrapper.setPropertyValue(field, tuple.get(field));
+            }
+            resources.add(resource);
+        }
+
+        return resources;
+    }
+
+    /**
+     * Пакетное сохранение: элементы проверяются все вместе, корректные записываются одной транзакцией пакетами
+     * JDBC, а ошибки остальных возвращаются по позициям пакета
+     */
+    default <E> List<BatchItemResult<ID>> saveBatch(List<T> resources, ResourceValidator<T> validator,
+                                                   Function<T, E> toEntity, JPAService<E, ID> jpaService) {
+        if (resources == null || resources.isEmpty() || resources.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch_size_incorrect");
+        }
+
+        String[] errors = new String[resources.size()];
+        List<E> entities = new ArrayList<>(errors.length);
+        for (int i = 0; i < errors.length; i++) {
+            try {
+                validator.validateSave(resources.get(i));
+                entities.add(toEntity.apply(resources.get(i)));
+            } catch (ResponseStatusException exception) {
+                errors[i] = exception.getReason();
+                entities.add(null);
+            }
+        }
+
+        List<ID> ids;
+        try {
+            jpaService.checkReferences(entities, errors);
+
+            List<E> valid = new ArrayList<>(entities.size());
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] == null) {
+                    valid.add(entities.get(i));
+                }
+            }
+            ids = valid.isEmpty() ? List.of() : jpaService.saveAll(valid);
+        } catch (Exception exception) {
+            exception.printStackTrace();
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, getCode(exception).name(), exception);
+        }
+
+        List<BatchItemResult<ID>> results = new ArrayList<>(errors.length);
+        Iterator<ID> savedIds = ids.iterator();
+        for (int i = 0; i < errors.length; i++) {
+            results.add(errors[i] == null ? BatchItemResult.created(i, savedIds.next())
+                    : BatchItemResult.failed(i, errors[i]));
+        }
 
+        return results;
+    }
 }
@@ -1,5 +1,8 @@
 package app.server.controller;
 
+import app.server.util.JsonArrayWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -8,13 +11,15 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 
 public interface IController<T, ID> {
 
-    @ResponseBody
-    List<T> getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
-                               HttpServletRequest request, HttpServletResponse response);
+    /**
+     * Все ресурсы; пишутся в тело ответа JSON-массивом по мере чтения из БД
+     */
+    void getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
+                HttpServletRequest request, HttpServletResponse response) throws IOException;
 
     @ResponseBody
     T get(@PathVariable ID id, @RequestParam(required = false, defaultValue = "false") Boolean expand,
@@ -30,4 +35,11 @@ public interface IController<T, ID> {
     @ResponseBody
     T delete(@RequestParam ID id, @RequestParam(required = false, defaultValue = "false") Boolean expand,
              HttpServletRequest request, HttpServletResponse response);
+
+    default JsonArrayWriter getArrayWriter(ObjectMapper objectMapper, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        return new JsonArrayWriter(objectMapper, response.getOutputStream());
+    }
 }
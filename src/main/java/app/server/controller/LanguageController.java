@@ -3,15 +3,19 @@ package app.server.controller;
 import app.server.domain.Language;
 import app.server.resource.LanguageResource;
 import app.server.service.LanguageJPAService;
+import app.server.util.CursorPage;
+import app.server.util.JsonArrayWriter;
 import app.server.util.QueryData;
 import app.server.validators.ErrorCode;
 import app.server.validators.LanguageResponseValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,55 +27,73 @@ public class LanguageController implements ExtendedController<LanguageResource,
 
     private final LanguageJPAService jpaService;
     private final LanguageResponseValidator validator;
+    private final ObjectMapper objectMapper;
 
-    public LanguageController(LanguageJPAService jpaService, LanguageResponseValidator validator) {
+    public LanguageController(LanguageJPAService jpaService, LanguageResponseValidator validator,
+                              ObjectMapper objectMapper) {
         this.jpaService = jpaService;
         this.validator = validator;
+        this.objectMapper = objectMapper;
     }
 
-    @Override
-    @GetMapping
-    public List<LanguageResource> getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
-                                         HttpServletRequest request, HttpServletResponse response) {
-        Spliterator<Language> spliterator = jpaService.getAll();
-        long size = spliterator.getExactSizeIfKnown();
-        if (size > Integer.MAX_VALUE) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, ErrorCode.COLLECTION_BIG_SIZE.name());
-        }
-        List<LanguageResource> languages = createList(size);
+    @GetMapping(params = "fields")
+    public List<LanguageResource> getAll(@RequestParam List<String> fields) {
+        QueryData queryData = new QueryData();
+        queryData.setFields(fields);
+        return getFields(queryData);
+    }
 
-        spliterator.forEachRemaining(language -> languages.add(new LanguageResource(language, expand)));
-        return languages;
+    private List<LanguageResource> getFields(QueryData queryData) {
+        Map<String, String> fieldPaths = getFieldPaths(queryData.getFields(), LanguageResource.FIELDS);
+        return toResources(getPage(queryData, data -> jpaService.getAll(data, fieldPaths)), fieldPaths,
+                LanguageResource::new);
     }
 
-    private List<LanguageResource> createList(long size) {
-        List<LanguageResource> languages;
-        if (size == -1) {
-            languages = new ArrayList<>();
-        } else {
-            languages = new ArrayList<>((int) size);
+    @Override
+    @GetMapping
+    public void getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (JsonArrayWriter writer = getArrayWriter(objectMapper, response)) {
+            jpaService.forEach(expand, language -> writer.write(new LanguageResource(language, expand)));
+            writer.finish();
         }
-        return languages;
     }
 
     @Override
     @PostMapping("/filter")
     public List<LanguageResource> getAll(@RequestBody(required = false) QueryData queryData,
-                                 HttpServletRequest request, HttpServletResponse response) {
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
         if (queryData == null) {
-            return getAll(false, request, response);
+            getAll(false, request, response);
+            return null;
+        }
+
+        if (queryData.getFields() != null && !queryData.getFields().isEmpty()) {
+            return getFields(queryData);
         }
 
         Boolean expand = queryData.getExpand() == null ? Boolean.FALSE : queryData.getExpand();
 
-        return jpaService.getAll(queryData).stream().map(language -> new LanguageResource(language, expand))
+        CursorPage<Language> page = getPage(queryData, jpaService::getAll);
+        if (page.getNextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+
+        return page.getItems().stream().map(language -> new LanguageResource(language, expand))
                 .collect(Collectors.toList());
     }
 
     @Override
     @GetMapping("/count")
-    public Long countAll(HttpServletRequest request, HttpServletResponse response) {
-        return jpaService.countAll();
+    public Long countAll(@RequestParam(required = false, defaultValue = "false") Boolean approximate,
+                         HttpServletRequest request, HttpServletResponse response) {
+        return jpaService.countAll(approximate);
+    }
+
+    @Override
+    @PostMapping("/count")
+    public Long countAll(@RequestBody QueryData queryData, HttpServletRequest request, HttpServletResponse response) {
+        return jpaService.countAll(queryData);
     }
 
     @Override
@@ -82,7 +104,7 @@ public class LanguageController implements ExtendedController<LanguageResource,
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorCode.PK_NULL.name());
         }
 
-        Optional<Language> optionalLanguage = jpaService.get(id);
+        Optional<Language> optionalLanguage = jpaService.get(id, expand);
         Language language = optionalLanguage.orElse(null);
         return language == null ? null : new LanguageResource(language, expand);
     }
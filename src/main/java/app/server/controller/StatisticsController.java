@@ -0,0 +1,45 @@
+package app.server.controller;
+
+import app.server.config.PoolMetrics;
+import app.server.repository.CriteriaQueryCache;
+import app.server.service.LanguageCache;
+import app.server.util.CacheStatistics;
+import app.server.util.PoolStatistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/statistics")
+public class StatisticsController {
+
+    private final CriteriaQueryCache criteriaQueryCache;
+    private final PoolMetrics poolMetrics;
+    private final LanguageCache languageCache;
+
+    public StatisticsController(CriteriaQueryCache criteriaQueryCache, PoolMetrics poolMetrics,
+                               LanguageCache languageCache) {
+        this.criteriaQueryCache = criteriaQueryCache;
+        this.poolMetrics = poolMetrics;
+        this.languageCache = languageCache;
+    }
+
+    @GetMapping("/criteria")
+    @ResponseBody
+    public CacheStatistics criteria() {
+        return criteriaQueryCache.getStatistics();
+    }
+
+    @GetMapping("/pool")
+    @ResponseBody
+    public PoolStatistics pool() {
+        return poolMetrics.getStatistics();
+    }
+
+    @GetMapping("/languages")
+    @ResponseBody
+    public CacheStatistics languages() {
+        return languageCache.getStatistics();
+    }
+}
@@ -1,24 +1,23 @@
 package app.server.controller;
 
-import app.server.domain.Concept;
-import app.server.domain.Word;
 import app.server.domain.WordConcept;
 import app.server.domain.custom.PartOfSpeech;
-import app.server.resource.ConceptResource;
 import app.server.resource.WordConceptResource;
-import app.server.resource.WordResource;
-import app.server.service.ConceptJPAService;
 import app.server.service.WordConceptJPAService;
-import app.server.service.WordJPAService;
+import app.server.util.BatchItemResult;
+import app.server.util.CursorPage;
+import app.server.util.JsonArrayWriter;
 import app.server.util.QueryData;
 import app.server.validators.ErrorCode;
 import app.server.validators.WordConceptResourceValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -29,16 +28,14 @@ import static app.server.validators.ExceptionParser.getCode;
 public class WordConceptController implements ExtendedController<WordConceptResource, Long>{
 
     private final WordConceptJPAService jpaService;
-    private final WordJPAService wordJPAService;
-    private final ConceptJPAService conceptJPAService;
     private final WordConceptResourceValidator validator;
+    private final ObjectMapper objectMapper;
 
-    public WordConceptController(WordConceptJPAService jpaService, WordJPAService wordJPAService,
-                                 ConceptJPAService conceptJPAService, WordConceptResourceValidator validator) {
+    public WordConceptController(WordConceptJPAService jpaService, WordConceptResourceValidator validator,
+                                 ObjectMapper objectMapper) {
         this.jpaService = jpaService;
-        this.wordJPAService = wordJPAService;
-        this.conceptJPAService = conceptJPAService;
         this.validator = validator;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/partsOfSpeech")
@@ -49,47 +46,62 @@ public class WordConceptController implements ExtendedController<WordConceptReso
     @Override
     @PostMapping("/filter")
     public List<WordConceptResource> getAll(@RequestBody(required = false) QueryData queryData,
-                                            HttpServletRequest request, HttpServletResponse response) {
+                                            HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         if (queryData == null) {
-            return getAll(false, request, response);
+            getAll(false, request, response);
+            return null;
+        }
+
+        if (queryData.getFields() != null && !queryData.getFields().isEmpty()) {
+            return getFields(queryData);
         }
 
         Boolean expand = queryData.getExpand() == null ? Boolean.FALSE : queryData.getExpand();
 
-        return jpaService.getAll(queryData).stream().map(wordConcept -> new WordConceptResource(wordConcept, expand))
+        CursorPage<WordConcept> page = getPage(queryData, jpaService::getAll);
+        if (page.getNextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+
+        return page.getItems().stream().map(wordConcept -> new WordConceptResource(wordConcept, expand))
                 .collect(Collectors.toList());
     }
 
     @Override
     @GetMapping("/count")
-    public Long countAll(HttpServletRequest request, HttpServletResponse response) {
-        return jpaService.countAll();
+    public Long countAll(@RequestParam(required = false, defaultValue = "false") Boolean approximate,
+                         HttpServletRequest request, HttpServletResponse response) {
+        return jpaService.countAll(approximate);
     }
 
     @Override
-    @GetMapping
-    public List<WordConceptResource> getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
-                                            HttpServletRequest request, HttpServletResponse response) {
-        Spliterator<WordConcept> spliterator = jpaService.getAll();
-        long size = spliterator.getExactSizeIfKnown();
-        if (size > Integer.MAX_VALUE) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, ErrorCode.COLLECTION_BIG_SIZE.name());
-        }
+    @PostMapping("/count")
+    public Long countAll(@RequestBody QueryData queryData, HttpServletRequest request, HttpServletResponse response) {
+        return jpaService.countAll(queryData);
+    }
 
-        List<WordConceptResource> concepts = createList(size);
-        spliterator.forEachRemaining(wordConcept -> concepts.add(new WordConceptResource(wordConcept, expand)));
+    @GetMapping(params = "fields")
+    public List<WordConceptResource> getAll(@RequestParam List<String> fields) {
+        QueryData queryData = new QueryData();
+        queryData.setFields(fields);
+        return getFields(queryData);
+    }
 
-        return concepts;
+    private List<WordConceptResource> getFields(QueryData queryData) {
+        Map<String, String> fieldPaths = getFieldPaths(queryData.getFields(), WordConceptResource.FIELDS);
+        return toResources(getPage(queryData, data -> jpaService.getAll(data, fieldPaths)), fieldPaths,
+                WordConceptResource::new);
     }
 
-    private List<WordConceptResource> createList(long size) {
-        List<WordConceptResource> concepts;
-        if (size == -1) {
-            concepts = new ArrayList<>();
-        } else {
-            concepts = new ArrayList<>((int) size);
+    @Override
+    @GetMapping
+    public void getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (JsonArrayWriter writer = getArrayWriter(objectMapper, response)) {
+            jpaService.forEach(expand, wordConcept -> writer.write(new WordConceptResource(wordConcept, expand)));
+            writer.finish();
         }
-        return concepts;
     }
 
     @Override
@@ -101,11 +113,20 @@ public class WordConceptController implements ExtendedController<WordConceptReso
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorCode.PK_NULL.name());
         }
 
-        Optional<WordConcept> optionalWordConcept = jpaService.get(id);
+        Optional<WordConcept> optionalWordConcept = jpaService.get(id, expand);
         WordConcept wordConcept = optionalWordConcept.orElse(null);
         return wordConcept == null ? null : new WordConceptResource(wordConcept, expand);
     }
 
+    /**
+     * Пакетное создание: ответ содержит id созданной сущности или код ошибки для каждого элемента пакета
+     */
+    @PostMapping("/batch")
+    public List<BatchItemResult<Long>> postBatch(@RequestBody List<WordConceptResource> wordConceptResources,
+                                                 HttpServletRequest request, HttpServletResponse response) {
+        return saveBatch(wordConceptResources, validator, WordConceptResource::toEntity, jpaService);
+    }
+
     @Override
     @PostMapping
     public WordConceptResource post(@RequestBody WordConceptResource wordConceptResource,
@@ -124,17 +145,16 @@ public class WordConceptController implements ExtendedController<WordConceptReso
         }
     }
 
+    /**
+     * При expand записанная сущность перечитывается одним запросом по графу загрузки, чтобы связанные сущности
+     * в ответе были загружены из БД; удалённая сущность возвращается как есть
+     */
     private WordConceptResource getWordConceptResource(WordConcept wordConcept, Boolean expand) {
-        WordConceptResource resource = new WordConceptResource(wordConcept, expand);
         if (expand) {
-            Optional<Word> word = wordJPAService.get(resource.getWordId());
-            word.ifPresent(value -> resource.setWord(new WordResource(value, false)));
-
-            Optional<Concept> concept = conceptJPAService.get(resource.getConceptId());
-            concept.ifPresent(value -> resource.setConcept(new ConceptResource(value, false)));
+            wordConcept = jpaService.get(wordConcept.getId(), true).orElse(wordConcept);
         }
 
-        return resource;
+        return new WordConceptResource(wordConcept, expand);
     }
 
     @Override
@@ -1,20 +1,24 @@
 package app.server.controller;
 
-import app.server.domain.Language;
 import app.server.domain.Word;
-import app.server.resource.LanguageResource;
 import app.server.resource.WordResource;
-import app.server.service.LanguageJPAService;
+import app.server.service.TextSearchService;
 import app.server.service.WordJPAService;
+import app.server.util.BatchItemResult;
+import app.server.util.CursorPage;
+import app.server.util.JsonArrayWriter;
 import app.server.util.QueryData;
+import app.server.util.SearchMode;
 import app.server.validators.ErrorCode;
 import app.server.validators.WordResourceValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,60 +28,109 @@ import static app.server.validators.ExceptionParser.getCode;
 @RequestMapping("/word")
 public class WordController implements ExtendedController<WordResource, Long>{
 
+    private static final int MAX_SUGGEST_LIMIT = 100;
+
     private final WordJPAService jpaService;
-    private final LanguageJPAService languageJPAService;
     private final WordResourceValidator validator;
+    private final TextSearchService searchService;
+    private final ObjectMapper objectMapper;
 
-    public WordController(WordJPAService jpaService, LanguageJPAService languageJPAService, WordResourceValidator validator) {
+    public WordController(WordJPAService jpaService, WordResourceValidator validator, TextSearchService searchService,
+                          ObjectMapper objectMapper) {
         this.jpaService = jpaService;
-        this.languageJPAService = languageJPAService;
         this.validator = validator;
+        this.searchService = searchService;
+        this.objectMapper = objectMapper;
     }
 
     @Override
     @PostMapping("/filter")
     public List<WordResource> getAll(@RequestBody(required = false) QueryData queryData,
-                                     HttpServletRequest request, HttpServletResponse response) {
+                                     HttpServletRequest request, HttpServletResponse response) throws IOException {
         if (queryData == null) {
-            return getAll(false, request, response);
+            getAll(false, request, response);
+            return null;
+        }
+
+        if (queryData.getFields() != null && !queryData.getFields().isEmpty()) {
+            return getFields(queryData);
         }
 
         Boolean expand = queryData.getExpand() == null ? Boolean.FALSE : queryData.getExpand();
 
-        return jpaService.getAll(queryData).stream().map(word -> new WordResource(word, expand))
+        CursorPage<Word> page = getPage(queryData, jpaService::getAll);
+        if (page.getNextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+
+        return page.getItems().stream().map(word -> new WordResource(word, expand))
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/search")
+    public List<WordResource> search(@RequestParam("query") String query,
+                                     @RequestParam(required = false) Integer languageId,
+                                     @RequestParam(required = false, defaultValue = "substring") SearchMode mode,
+                                     @RequestParam(required = false, defaultValue = "20") Integer limit,
+                                     @RequestParam(required = false, defaultValue = "false") Boolean expand) {
+        if (query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "search_query_blank");
+        }
+
+        if (limit <= 0 || limit > TextSearchService.MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "search_limit_incorrect");
+        }
+
+        return searchService.searchWords(query, languageId, mode, limit, expand).stream()
+                .map(word -> new WordResource(word, expand))
                 .collect(Collectors.toList());
     }
 
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam("languageId") Integer languageId,
+                                @RequestParam(value = "prefix", required = false, defaultValue = "") String prefix,
+                                @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        if (limit <= 0 || limit > MAX_SUGGEST_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "suggest_limit_incorrect");
+        }
+
+        return jpaService.suggest(languageId, prefix, limit);
+    }
+
     @Override
     @GetMapping("/count")
-    public Long countAll(HttpServletRequest request, HttpServletResponse response) {
-        return jpaService.countAll();
+    public Long countAll(@RequestParam(required = false, defaultValue = "false") Boolean approximate,
+                         HttpServletRequest request, HttpServletResponse response) {
+        return jpaService.countAll(approximate);
     }
 
     @Override
-    @GetMapping
-    public List<WordResource> getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
-                                     HttpServletRequest request, HttpServletResponse response) {
-        Spliterator<Word> spliterator = jpaService.getAll();
-        long size = spliterator.getExactSizeIfKnown();
-        if (size > Integer.MAX_VALUE) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorCode.COLLECTION_BIG_SIZE.name());
-        }
+    @PostMapping("/count")
+    public Long countAll(@RequestBody QueryData queryData, HttpServletRequest request, HttpServletResponse response) {
+        return jpaService.countAll(queryData);
+    }
 
-        List<WordResource> words = createList(size);
-        spliterator.forEachRemaining(word -> words.add(new WordResource(word, expand)));
+    @GetMapping(params = "fields")
+    public List<WordResource> getAll(@RequestParam List<String> fields) {
+        QueryData queryData = new QueryData();
+        queryData.setFields(fields);
+        return getFields(queryData);
+    }
 
-        return words;
+    private List<WordResource> getFields(QueryData queryData) {
+        Map<String, String> fieldPaths = getFieldPaths(queryData.getFields(), WordResource.FIELDS);
+        return toResources(getPage(queryData, data -> jpaService.getAll(data, fieldPaths)), fieldPaths,
+                WordResource::new);
     }
 
-    private List<WordResource> createList(long size) {
-        List<WordResource> words;
-        if (size == -1) {
-            words = new ArrayList<>();
-        } else {
-            words = new ArrayList<>((int) size);
+    @Override
+    @GetMapping
+    public void getAll(@RequestParam(required = false, defaultValue = "false") Boolean expand,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (JsonArrayWriter writer = getArrayWriter(objectMapper, response)) {
+            jpaService.forEach(expand, word -> writer.write(new WordResource(word, expand)));
+            writer.finish();
         }
-        return words;
     }
 
     @Override
@@ -88,12 +141,21 @@ public class WordController implements ExtendedController<WordResource, Long>{
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorCode.PK_NULL.name());
         }
 
-        Optional<Word> optionalWord = jpaService.get(id);
+        Optional<Word> optionalWord = jpaService.get(id, expand);
         Word word = optionalWord.orElse(null);
 
         return word == null ? null : new WordResource(word, expand);
     }
 
+    /**
+     * Пакетное создание: ответ содержит id созданной сущности или код ошибки для каждого элемента пакета
+     */
+    @PostMapping("/batch")
+    public List<BatchItemResult<Long>> postBatch(@RequestBody List<WordResource> wordResources,
+                                                 HttpServletRequest request, HttpServletResponse response) {
+        return saveBatch(wordResources, validator, WordResource::toEntity, jpaService);
+    }
+
     @Override
     @PostMapping
     public WordResource post(@RequestBody WordResource wordResource,
@@ -112,14 +174,16 @@ public class WordController implements ExtendedController<WordResource, Long>{
         }
     }
 
+    /**
+     * При expand записанная сущность перечитывается одним запросом по графу загрузки, чтобы связанные сущности
+     * в ответе были загружены из БД; удалённая сущность возвращается как есть
+     */
     private WordResource getWordResource(Word word, Boolean expand) {
-        WordResource resource = new WordResource(word, expand);
         if (expand) {
-            Optional<Language> language = languageJPAService.get(resource.getLanguageId());
-            language.ifPresent(value -> resource.setLanguage(new LanguageResource(value, false)));
+            word = jpaService.get(word.getId(), true).orElse(word);
         }
 
-        return resource;
+        return new WordResource(word, expand);
     }
 
     @Override
@@ -1,5 +1,7 @@
 package app.server.domain;
 
+import org.hibernate.Hibernate;
+
 import java.util.Objects;
 
 public abstract class AbstractEntity<ID> implements IEntity {
@@ -11,7 +13,8 @@ public abstract class AbstractEntity<ID> implements IEntity {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        // у ленивых прокси класс отличается от класса сущности
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
         AbstractEntity<?> that = (AbstractEntity<?>) o;
         return Objects.equals(getId(), that.getId());
     }
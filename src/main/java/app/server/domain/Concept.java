@@ -3,17 +3,23 @@ package app.server.domain;
 import javax.persistence.*;
 
 @Entity
+@NamedEntityGraph(name = Concept.EXPAND_GRAPH, attributeNodes = @NamedAttributeNode("parent"))
 public class Concept extends AbstractEntity<Long> implements IEntity {
 
+    /**
+     * Граф загрузки для expand: связанные сущности выбираются тем же запросом (fetch join)
+     */
+    public static final String EXPAND_GRAPH = "Concept.expand";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "conceptIdGenerator")
-    @SequenceGenerator(name = "conceptIdGenerator", sequenceName = "concept_seq", allocationSize = 1)
+    @SequenceGenerator(name = "conceptIdGenerator", sequenceName = "concept_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String name;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Concept parent;
 
     @Override
@@ -7,7 +7,7 @@ public class Language extends AbstractEntity<Integer> implements IEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "languageIdGenerator")
-    @SequenceGenerator(name = "languageIdGenerator", sequenceName = "language_seq", allocationSize = 1)
+    @SequenceGenerator(name = "languageIdGenerator", sequenceName = "language_seq", allocationSize = 50)
     private Integer id;
 
     @Column(nullable = false)
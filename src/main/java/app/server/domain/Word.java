@@ -3,17 +3,23 @@ package app.server.domain;
 import javax.persistence.*;
 
 @Entity
+@NamedEntityGraph(name = Word.EXPAND_GRAPH, attributeNodes = @NamedAttributeNode("language"))
 public class Word extends AbstractEntity<Long> implements IEntity {
 
+    /**
+     * Граф загрузки для expand: связанные сущности выбираются тем же запросом (fetch join)
+     */
+    public static final String EXPAND_GRAPH = "Word.expand";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wordIdGenerator")
-    @SequenceGenerator(name = "wordIdGenerator", sequenceName = "word_seq", allocationSize = 1)
+    @SequenceGenerator(name = "wordIdGenerator", sequenceName = "word_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String value;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(nullable = false)
     private Language language;
 
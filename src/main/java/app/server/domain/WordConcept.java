@@ -5,20 +5,28 @@ import app.server.domain.custom.PartOfSpeech;
 import javax.persistence.*;
 
 @Entity(name = "word_concept")
+@NamedEntityGraph(name = WordConcept.EXPAND_GRAPH, attributeNodes = {
+        @NamedAttributeNode("word"), @NamedAttributeNode("concept")
+})
 @Table(uniqueConstraints =
     @UniqueConstraint(name = "unique_word_concept", columnNames = {"word_id", "concept_id"}))
 public class WordConcept extends AbstractEntity<Long> implements IEntity {
 
+    /**
+     * Граф загрузки для expand: связанные сущности выбираются тем же запросом (fetch join)
+     */
+    public static final String EXPAND_GRAPH = "WordConcept.expand";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wordConceptIdGenerator")
-    @SequenceGenerator(name = "wordConceptIdGenerator", sequenceName = "word_concept_seq", allocationSize = 1)
+    @SequenceGenerator(name = "wordConceptIdGenerator", sequenceName = "word_concept_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "word_id", nullable = false)
     private Word word;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "concept_id", nullable = false)
     private Concept concept;
 
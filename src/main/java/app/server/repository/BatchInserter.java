@@ -0,0 +1,54 @@
+package app.server.repository;
+
+import app.server.domain.AbstractEntity;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Запись новых сущностей в текущей транзакции: контекст персистентности сбрасывается и очищается каждые
+ * hibernate.jdbc.batch_size сущностей, поэтому INSERT уходят пакетами JDBC, а память не растёт с размером пакета.
+ * Идентификаторы выделяются блоками (pooled-lo) и известны сразу после persist
+ */
+@Component
+public class BatchInserter {
+
+    private static final String PROP_BATCH_SIZE = "hibernate.jdbc.batch_size";
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public BatchInserter(EntityManager entityManager, Environment env) {
+        this.entityManager = entityManager;
+        this.batchSize = env.getProperty(PROP_BATCH_SIZE, Integer.class, 50);
+    }
+
+    /**
+     * @param resolveReferences вызывается перед persist каждой сущности: после очистки контекста ссылки на связанные
+     *                          сущности нужно получать заново
+     * @return идентификаторы в порядке сущностей
+     */
+    public <ID, T extends AbstractEntity<ID>> List<ID> persistAll(List<T> entities,
+                                                                  Consumer<? super T> resolveReferences) {
+        List<ID> ids = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            T entity = entities.get(i);
+            resolveReferences.accept(entity);
+            entityManager.persist(entity);
+            ids.add(entity.getId());
+
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        return ids;
+    }
+}
@@ -1,9 +1,16 @@
 package app.server.repository;
 
 import app.server.domain.Concept;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ConceptRepository extends IRepository<Concept, Long>, CrudRepository<Concept, Long> {
 
@@ -11,4 +18,10 @@ public interface ConceptRepository extends IRepository<Concept, Long>, CrudRepos
     default Class<Concept> getEntityClass() {
         return Concept.class;
     }
+
+    @EntityGraph(Concept.EXPAND_GRAPH)
+    Optional<Concept> findExpandedById(Long id);
+
+    @Query("SELECT c.id FROM Concept c WHERE c.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,59 @@
+package app.server.repository;
+
+import app.server.util.CacheStatistics;
+import app.server.util.QueryData;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш текстов запросов выборки по фильтру. Для каждой формы {@link QueryData} (см.
+ * {@link IRepository#getQueryShape(QueryData)}) CriteriaQuery строится и переводится в JPQL один раз, дальше
+ * запрос создаётся из готового текста: Hibernate берёт план из своего кэша планов, а одинаковый SQL позволяет
+ * драйверу переиспользовать серверные подготовленные выражения. При переполнении вытесняется форма, к которой
+ * дольше всего не обращались
+ */
+@Component
+public class CriteriaQueryCache {
+
+    private static final int MAX_SIZE = 1_000;
+
+    private final Map<String, String> queries = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_SIZE;
+                }
+            });
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public <T> TypedQuery<T> createQuery(EntityManager entityManager, IRepository<T, ?> repository,
+                                         QueryData queryData) {
+        String shape = repository.getQueryShape(queryData);
+        String jpql = queries.get(shape);
+
+        TypedQuery<T> query;
+        if (jpql != null) {
+            hits.incrementAndGet();
+            query = entityManager.createQuery(jpql, repository.getEntityClass());
+        } else {
+            misses.incrementAndGet();
+            query = entityManager.createQuery(repository.getCriteriaQuery(entityManager.getCriteriaBuilder(),
+                    queryData));
+            queries.putIfAbsent(shape, query.unwrap(org.hibernate.query.Query.class).getQueryString());
+        }
+
+        repository.setParameters(query, entityManager.getMetamodel(), queryData);
+        return query;
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(queries.size(), hits.get(), misses.get());
+    }
+}
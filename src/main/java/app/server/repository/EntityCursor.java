@@ -0,0 +1,85 @@
+package app.server.repository;
+
+import app.server.config.ReplicaRoutingDataSource;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Обход всех строк таблицы сущности однонаправленным курсором: драйвер читает строки порциями по fetch size,
+ * а контекст персистентности очищается каждые clear interval строк, поэтому расход памяти не зависит от размера
+ * таблицы. Сущности, переданные обработчику, после очистки становятся отсоединёнными
+ */
+@Component
+public class EntityCursor {
+
+    private static final String PROP_FETCH_SIZE = "entity.cursor.fetch-size";
+    private static final String PROP_CLEAR_INTERVAL = "entity.cursor.clear-interval";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final int fetchSize;
+    private final int clearInterval;
+
+    public EntityCursor(EntityManagerFactory entityManagerFactory, Environment env) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.fetchSize = env.getProperty(PROP_FETCH_SIZE, Integer.class, 1_000);
+        this.clearInterval = env.getProperty(PROP_CLEAR_INTERVAL, Integer.class, 1_000);
+    }
+
+    /**
+     * @param graph граф загрузки связанных сущностей или null
+     */
+    public <T> void forEach(Class<T> entityClass, String graph, RowHandler<? super T> handler) throws IOException {
+        // чтение всей таблицы выполняется на реплике, если она настроена
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.readOnly()) {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            // драйвер PostgreSQL читает строки порциями (серверным курсором) только вне режима autocommit
+            EntityTransaction transaction = entityManager.getTransaction();
+            try {
+                transaction.begin();
+
+                CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+                CriteriaQuery<T> criteriaQuery = builder.createQuery(entityClass);
+                criteriaQuery.select(criteriaQuery.from(entityClass));
+
+                TypedQuery<T> query = entityManager.createQuery(criteriaQuery)
+                        .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                        .setHint(QueryHints.HINT_READONLY, true);
+                if (graph != null) {
+                    query.setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(graph));
+                }
+
+                try (Stream<T> rows = query.getResultStream()) {
+                    Iterator<T> iterator = rows.iterator();
+                    long processed = 0;
+                    while (iterator.hasNext()) {
+                        handler.handle(iterator.next());
+                        if (++processed % clearInterval == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+            } finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                entityManager.close();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowHandler<T> {
+        void handle(T row) throws IOException;
+    }
+}
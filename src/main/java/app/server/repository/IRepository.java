@@ -1,49 +1,374 @@
 package app.server.repository;
 
 import app.server.util.ColumnData;
+import app.server.util.Cursor;
 import app.server.util.QueryData;
 import app.server.util.SortOrder;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.NullValueInNestedPathException;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.Repository;
 
+import javax.persistence.Column;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.*;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @NoRepositoryBean
 public interface IRepository<T, ID> extends Repository<T, ID> {
 
+    String ID = "id";
+    String REGEX_PARAMETER = "regex";
+    String CURSOR_PARAMETER = "cursor";
+
+    /**
+     * Наибольшее количество значений в одном списке IN
+     */
+    int MAX_IN_PARAMETERS = 1_000;
+
     T saveAndFlush(T object);
 
+    /**
+     * Выполняет запрос со списком IN частями по {@link #MAX_IN_PARAMETERS} значений и объединяет результаты
+     */
+    static <K, R> List<R> findByChunks(Collection<K> keys, Function<List<K>, List<R>> finder) {
+        List<K> values = new ArrayList<>(keys);
+        List<R> results = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += MAX_IN_PARAMETERS) {
+            results.addAll(finder.apply(values.subList(from, Math.min(from + MAX_IN_PARAMETERS, values.size()))));
+        }
+
+        return results;
+    }
+
     Class<T> getEntityClass();
 
+    /**
+     * Строит запрос с именованными параметрами вместо значений фильтров: regex{i} - шаблон LIKE для i-го столбца,
+     * cursor{i} - i-е значение курсора. Текст запроса зависит только от "формы" {@link #getQueryShape(QueryData)},
+     * значения подставляются {@link #setParameters(Query, Metamodel, QueryData)}
+     */
     default CriteriaQuery<T> getCriteriaQuery(CriteriaBuilder builder, QueryData queryData) {
         CriteriaQuery<T> query = builder.createQuery(getEntityClass());
         Root<T> root = query.from(getEntityClass());
+        applyFilter(builder, query, root, queryData);
 
-        List<ColumnData> columns = queryData.getColumns();
-        if (columns != null && !columns.isEmpty()) {
-            List<Order> orders = new ArrayList<>();
-            Predicate predicate = builder.and();
+        return query;
+    }
+
+    /**
+     * То же, что {@link #getCriteriaQuery(CriteriaBuilder, QueryData)}, но вместо сущностей выбираются только
+     * заданные столбцы: ключ fieldPaths - псевдоним элемента кортежа, значение - путь в сущности
+     */
+    default CriteriaQuery<Tuple> getTupleQuery(CriteriaBuilder builder, QueryData queryData,
+                                               Map<String, String> fieldPaths) {
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<T> root = query.from(getEntityClass());
+
+        List<Selection<?>> selections = new ArrayList<>(fieldPaths.size());
+        fieldPaths.forEach((field, path) -> selections.add(getPath(root, path).alias(field)));
+        query.multiselect(selections);
+        applyFilter(builder, query, root, queryData);
+
+        return query;
+    }
+
+    /**
+     * Запрос количества строк, удовлетворяющих фильтрам столбцов (условие то же, что в
+     * {@link #getCriteriaQuery(CriteriaBuilder, QueryData)}); сортировка, курсор и границы страницы не учитываются.
+     * Значения подставляются {@link #setFilterParameters(Query, QueryData)}
+     */
+    default CriteriaQuery<Long> getCountQuery(CriteriaBuilder builder, QueryData queryData) {
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<T> root = query.from(getEntityClass());
+
+        List<ColumnData> columns = getColumns(queryData);
+        List<Path<?>> paths = new ArrayList<>(columns.size());
+        for (ColumnData columnData: columns) {
+            // соединения нужны только для фильтруемых столбцов
+            paths.add(columnData.getRegex() == null ? null : getPath(root, columnData.getColumn()));
+        }
+
+        query.select(builder.count(root));
+        query.where(getFilterPredicate(builder, columns, paths));
+
+        return query;
+    }
+
+    private void applyFilter(CriteriaBuilder builder, CriteriaQuery<?> query, Root<T> root, QueryData queryData) {
+        List<Order> orders = new ArrayList<>();
+        List<Path<?>> sortKeys = new ArrayList<>();
+        List<SortOrder> sortOrders = new ArrayList<>();
+
+        List<ColumnData> columns = getColumns(queryData);
+        List<Path<?>> paths = new ArrayList<>(columns.size());
+        for (ColumnData columnData: columns) {
+            Path<?> expression = getPath(root, columnData.getColumn());
+            paths.add(expression);
+
+            if (columnData.getOrder() != null) {
+                sortKeys.add(expression);
+                sortOrders.add(columnData.getOrder());
+            }
+            addOrders(builder, orders, columnData, expression);
+        }
+        Predicate predicate = getFilterPredicate(builder, columns, paths);
+
+        // первичный ключ замыкает сортировку, чтобы порядок строк (и курсор) был однозначным
+        Path<?> id = root.get(ID);
+        orders.add(builder.asc(id));
+        sortKeys.add(id);
+        sortOrders.add(SortOrder.ASCENDING);
 
+        if (queryData.getCursor() != null) {
+            List<JsonNode> values = decodeCursor(queryData, sortKeys.size());
+            predicate = builder.and(predicate, getCursorPredicate(builder, sortKeys, sortOrders, values));
+        }
+
+        query.orderBy(orders);
+        query.where(predicate);
+    }
+
+    private List<ColumnData> getColumns(QueryData queryData) {
+        return queryData.getColumns() == null ? List.of() : queryData.getColumns();
+    }
+
+    private Predicate getFilterPredicate(CriteriaBuilder builder, List<ColumnData> columns, List<Path<?>> paths) {
+        Predicate predicate = builder.and();
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getRegex() != null) {
+                predicate = builder.and(predicate, builder.like(paths.get(i).as(String.class),
+                        builder.parameter(String.class, REGEX_PARAMETER + i)));
+            }
+        }
+
+        return predicate;
+    }
+
+    /**
+     * Форма запроса: сущность, столбцы с признаками фильтрации и порядком сортировки, наличие курсора и позиции
+     * NULL в нём. Запросы одной формы отличаются только значениями параметров
+     */
+    default String getQueryShape(QueryData queryData) {
+        StringBuilder shape = new StringBuilder(getEntityClass().getName());
+
+        List<ColumnData> columns = queryData.getColumns();
+        int sortKeys = 1;
+        if (columns != null) {
             for (ColumnData columnData: columns) {
-                String columnName = columnData.getColumn();
-                Path<?> expression = getPath(root, columnName);
+                shape.append('|').append(columnData.getColumn())
+                        .append(':').append(columnData.getRegex() != null)
+                        .append(':').append(columnData.getOrder());
+                if (columnData.getOrder() != null) {
+                    sortKeys++;
+                }
+            }
+        }
+
+        if (queryData.getCursor() != null) {
+            shape.append("|cursor:");
+            for (JsonNode value: decodeCursor(queryData, sortKeys)) {
+                shape.append(value.isNull() ? '0' : '1');
+            }
+        }
+
+        return shape.toString();
+    }
 
-                String regex = columnData.getRegex();
-                if (regex != null) {
-                    predicate = builder.and(predicate, builder.like(expression.as(String.class), regex));
+    default void setParameters(Query query, Metamodel metamodel, QueryData queryData) {
+        setFilterParameters(query, queryData);
+
+        List<String> sortColumns = new ArrayList<>();
+        for (ColumnData columnData: getColumns(queryData)) {
+            if (columnData.getOrder() != null) {
+                sortColumns.add(columnData.getColumn());
+            }
+        }
+        sortColumns.add(ID);
+
+        if (queryData.getCursor() != null) {
+            List<JsonNode> values = decodeCursor(queryData, sortColumns.size());
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i).isNull()) {
+                    continue;
                 }
 
-                addOrders(builder, orders, columnData, expression);
+                Object value = Cursor.convert(values.get(i), getJavaType(metamodel, sortColumns.get(i)));
+                query.setParameter(CURSOR_PARAMETER + i, value);
+            }
+        }
+    }
+
+    default void setFilterParameters(Query query, QueryData queryData) {
+        List<ColumnData> columns = getColumns(queryData);
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getRegex() != null) {
+                query.setParameter(REGEX_PARAMETER + i, columns.get(i).getRegex());
             }
+        }
+    }
 
-            query.orderBy(orders);
-            query.where(predicate);
+    private Class<?> getJavaType(Metamodel metamodel, String columnName) {
+        ManagedType<?> type = metamodel.managedType(getEntityClass());
+        String[] columnMapping = columnName.split("\\.");
+        for (int i = 0; i < columnMapping.length - 1; i++) {
+            type = metamodel.managedType(type.getAttribute(columnMapping[i]).getJavaType());
         }
 
-        return query;
+        return type.getAttribute(columnMapping[columnMapping.length - 1]).getJavaType();
+    }
+
+    /**
+     * @throws IllegalArgumentException если токен не является курсором для сортировки queryData
+     */
+    private List<JsonNode> decodeCursor(QueryData queryData, int sortKeys) {
+        List<JsonNode> values = Cursor.decode(queryData.getCursor());
+        if (values.size() != sortKeys) {
+            throw new IllegalArgumentException("Cursor has " + values.size() + " keys, expected " + sortKeys);
+        }
+
+        return values;
+    }
+
+    /**
+     * Условие "строка следует за курсором" в лексикографическом порядке ключей сортировки. Если все ключи
+     * возрастают и не могут быть NULL, это сравнение строк (k1, ..., id) > (v1, ..., vn), которое PostgreSQL
+     * выполняет одним диапазоном индекса (см. db/cursor_indexes.sql); иначе - (k1 > v1) OR (k1 = v1 AND k2 > v2)
+     * OR ... Значения NULL упорядочены как в PostgreSQL по умолчанию (последними при ASC, первыми при DESC)
+     */
+    private Predicate getCursorPredicate(CriteriaBuilder builder, List<Path<?>> sortKeys, List<SortOrder> sortOrders,
+                                         List<JsonNode> values) {
+        List<ParameterExpression<Comparable<Object>>> parameters = new ArrayList<>(sortKeys.size());
+        boolean rowComparable = true;
+        for (int i = 0; i < sortKeys.size(); i++) {
+            Expression<Comparable<Object>> key = (Expression<Comparable<Object>>) sortKeys.get(i);
+            parameters.add(values.get(i).isNull() ? null
+                    : (ParameterExpression<Comparable<Object>>) builder.parameter(key.getJavaType(),
+                    CURSOR_PARAMETER + i));
+            rowComparable &= sortOrders.get(i) == SortOrder.ASCENDING && !isNullable(sortKeys.get(i))
+                    && !values.get(i).isNull();
+        }
+
+        if (rowComparable) {
+            List<Expression<?>> arguments = new ArrayList<>(sortKeys);
+            arguments.addAll(parameters);
+            return builder.isTrue(builder.function(RowValueFunctions.ROW_AFTER, Boolean.class,
+                    arguments.toArray(new Expression<?>[0])));
+        }
+
+        Predicate result = builder.or();
+        Predicate equal = builder.and();
+        for (int i = 0; i < sortKeys.size(); i++) {
+            Expression<Comparable<Object>> key = (Expression<Comparable<Object>>) sortKeys.get(i);
+            ParameterExpression<Comparable<Object>> value = parameters.get(i);
+
+            result = builder.or(result, builder.and(equal,
+                    getAfter(builder, key, isNullable(sortKeys.get(i)), sortOrders.get(i), value)));
+            equal = builder.and(equal, value == null ? builder.isNull(key) : builder.equal(key, value));
+        }
+
+        return result;
+    }
+
+    private Predicate getAfter(CriteriaBuilder builder, Expression<Comparable<Object>> key, boolean nullable,
+                               SortOrder order, Expression<Comparable<Object>> value) {
+        if (order == SortOrder.DESCENDING) {
+            return value == null ? builder.isNotNull(key) : builder.lessThan(key, value);
+        }
+
+        if (value == null) {
+            return builder.or();
+        }
+
+        return nullable ? builder.or(builder.greaterThan(key, value), builder.isNull(key))
+                : builder.greaterThan(key, value);
+    }
+
+    /**
+     * Может ли путь быть NULL: первичный ключ и столбцы (в том числе внешние ключи) с запретом NULL - нет,
+     * если все связи на пути к ним тоже обязательны
+     */
+    private boolean isNullable(Path<?> path) {
+        for (Path<?> current = path; current.getParentPath() != null; current = current.getParentPath()) {
+            Attribute<?, ?> attribute = current instanceof Join ? ((Join<?, ?>) current).getAttribute()
+                    : (Attribute<?, ?>) current.getModel();
+            if (isNullable(attribute)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isNullable(Attribute<?, ?> attribute) {
+        if (attribute instanceof SingularAttribute && ((SingularAttribute<?, ?>) attribute).isId()) {
+            return false;
+        }
+
+        if (!(attribute.getJavaMember() instanceof AnnotatedElement)) {
+            return true;
+        }
+
+        AnnotatedElement member = (AnnotatedElement) attribute.getJavaMember();
+        Column column = member.getAnnotation(Column.class);
+        JoinColumn joinColumn = member.getAnnotation(JoinColumn.class);
+        ManyToOne manyToOne = member.getAnnotation(ManyToOne.class);
+        return !((column != null && !column.nullable()) || (joinColumn != null && !joinColumn.nullable())
+                || (manyToOne != null && !manyToOne.optional()));
+    }
+
+    /**
+     * Токен продолжения для следующей страницы или null, если страница неполная (дальше строк нет)
+     */
+    default String getNextCursor(List<T> page, QueryData queryData) {
+        Integer limit = queryData.getLimit();
+        if (limit == null || limit <= 0 || page.size() < limit) {
+            return null;
+        }
+
+        return getCursor(page.get(page.size() - 1), queryData);
+    }
+
+    /**
+     * Токен продолжения для строки, последней на странице: значения её столбцов сортировки и первичного ключа
+     */
+    default String getCursor(T entity, QueryData queryData) {
+        BeanWrapper wrapper = new BeanWrapperImpl(entity);
+        List<Object> values = new ArrayList<>();
+
+        List<ColumnData> columns = queryData.getColumns();
+        if (columns != null) {
+            for (ColumnData columnData: columns) {
+                if (columnData.getOrder() != null) {
+                    values.add(getValue(wrapper, columnData.getColumn()));
+                }
+            }
+        }
+        values.add(wrapper.getPropertyValue(ID));
+
+        return Cursor.encode(values);
+    }
+
+    private Object getValue(BeanWrapper wrapper, String columnName) {
+        try {
+            return wrapper.getPropertyValue(columnName);
+        } catch (NullValueInNestedPathException exception) {
+            return null;
+        }
     }
 
     private void addOrders(CriteriaBuilder builder, List<Order> orders, ColumnData columnData, Path<?> expression) {
@@ -57,27 +382,33 @@ public interface IRepository<T, ID> extends Repository<T, ID> {
         }
     }
 
+    /**
+     * Путь к атрибуту вида "a.b.c". Идентификатор связи ("a.id") читается из внешнего ключа без соединения,
+     * к остальным атрибутам связей строится LEFT JOIN
+     */
     private Path<?> getPath(Root<T> root, String columnName) {
         String[] columnMapping = columnName.split("\\.");
-        Join<?, ?> join = null;
-
         int length = columnMapping.length;
-        if (length != 1) {
-            join = root.join(columnMapping[0], JoinType.LEFT);
-            for (int i = 1; i < length - 1; i++) {
-                join = join.join(columnMapping[i], JoinType.LEFT);
-            }
+        int joins = length > 1 && ID.equals(columnMapping[length - 1]) ? length - 2 : length - 1;
+
+        From<?, ?> from = root;
+        for (int i = 0; i < joins; i++) {
+            from = from.join(columnMapping[i], JoinType.LEFT);
+        }
+
+        Path<?> path = from;
+        for (int i = joins; i < length; i++) {
+            path = path.get(columnMapping[i]);
         }
-        columnName = columnMapping[length - 1];
 
-        return join == null ? root.get(columnName) : join.get(columnName);
+        return path;
     }
 
-    default List<T> getAll(Query query, QueryData queryData) {
+    default <R> List<R> getAll(Query query, QueryData queryData) {
         Integer limit = queryData.getLimit();
         Integer offset = queryData.getOffset();
 
-        if (offset != null && offset > 0) {
+        if (offset != null && offset > 0 && queryData.getCursor() == null) {
             query = query.setFirstResult(offset);
         }
 
@@ -85,7 +416,7 @@ public interface IRepository<T, ID> extends Repository<T, ID> {
             query = query.setMaxResults(limit);
         }
 
-        return (List<T>) query.getResultList();
+        return (List<R>) query.getResultList();
     }
 
 }
@@ -0,0 +1,70 @@
+package app.server.repository;
+
+import org.hibernate.QueryException;
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
+
+import java.util.List;
+
+/**
+ * Функции JPQL для сравнения строк (row value), которого нет в Criteria API. Подключается свойством
+ * hibernate.metadata_builder_contributor
+ */
+public class RowValueFunctions implements MetadataBuilderContributor {
+
+    /**
+     * row_after(k1, ..., kn, v1, ..., vn) - условие (k1, ..., kn) > (v1, ..., vn). PostgreSQL выполняет его
+     * одним диапазоном индекса по (k1, ..., kn)
+     */
+    public static final String ROW_AFTER = "row_after";
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction(ROW_AFTER, new RowAfter());
+    }
+
+    private static class RowAfter implements SQLFunction {
+
+        @Override
+        public boolean hasArguments() {
+            return true;
+        }
+
+        @Override
+        public boolean hasParenthesesIfNoArguments() {
+            return true;
+        }
+
+        @Override
+        public Type getReturnType(Type firstArgumentType, Mapping mapping) throws QueryException {
+            return StandardBasicTypes.BOOLEAN;
+        }
+
+        @Override
+        public String render(Type firstArgumentType, List arguments, SessionFactoryImplementor factory)
+                throws QueryException {
+            if (arguments.isEmpty() || arguments.size() % 2 != 0) {
+                throw new QueryException(ROW_AFTER + " requires an even number of arguments");
+            }
+
+            int size = arguments.size() / 2;
+            StringBuilder sql = new StringBuilder("((");
+            for (int i = 0; i < arguments.size(); i++) {
+                if (i == size) {
+                    sql.append(") > (");
+                } else if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(arguments.get(i));
+            }
+
+            // внешние скобки: результат сравнивается с true, а операторы сравнения в PostgreSQL неассоциативны
+            return sql.append("))").toString();
+        }
+    }
+}
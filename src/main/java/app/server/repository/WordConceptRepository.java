@@ -1,13 +1,29 @@
 package app.server.repository;
 
 import app.server.domain.WordConcept;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface WordConceptRepository extends IRepository<WordConcept, Long>, CrudRepository<WordConcept, Long> {
     @Override
     default Class<WordConcept> getEntityClass() {
         return WordConcept.class;
     }
+
+    @EntityGraph(WordConcept.EXPAND_GRAPH)
+    Optional<WordConcept> findExpandedById(Long id);
+
+    /**
+     * @return пары [id слова, id понятия] существующих связей указанных слов
+     */
+    @Query("SELECT wc.word.id, wc.concept.id FROM word_concept wc WHERE wc.word.id IN :wordIds")
+    List<Object[]> findLinks(@Param("wordIds") Collection<Long> wordIds);
 }
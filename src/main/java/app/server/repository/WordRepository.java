@@ -1,7 +1,14 @@
 package app.server.repository;
 
 import app.server.domain.Word;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface WordRepository extends IRepository<Word, Long>, CrudRepository<Word, Long> {
 
@@ -9,4 +16,10 @@ public interface WordRepository extends IRepository<Word, Long>, CrudRepository<
     default Class<Word> getEntityClass() {
         return Word.class;
     }
+
+    @EntityGraph(Word.EXPAND_GRAPH)
+    Optional<Word> findExpandedById(Long id);
+
+    @Query("SELECT w.id FROM Word w WHERE w.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -2,8 +2,19 @@ package app.server.resource;
 
 import app.server.domain.Concept;
 
+import java.util.Map;
+
 public class ConceptResource extends AbstractResource<Concept> implements IResource<Concept> {
 
+    /**
+     * Поля ресурса, доступные для выборки через fields, и соответствующие им пути в сущности
+     */
+    public static final Map<String, String> FIELDS = Map.of(
+            "id", "id",
+            "name", "name",
+            "parentId", "parent.id"
+    );
+
     private Long id;
     private String name;
     private Long parentId;
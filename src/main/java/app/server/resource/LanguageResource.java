@@ -2,8 +2,19 @@ package app.server.resource;
 
 import app.server.domain.Language;
 
+import java.util.Map;
+
 public class LanguageResource extends AbstractResource<Language> implements IResource<Language> {
 
+    /**
+     * Поля ресурса, доступные для выборки через fields, и соответствующие им пути в сущности
+     */
+    public static final Map<String, String> FIELDS = Map.of(
+            "id", "id",
+            "name", "name",
+            "alphabet", "alphabet"
+    );
+
     private Integer id;
     private String name;
     private String alphabet;
@@ -5,8 +5,20 @@ import app.server.domain.Word;
 import app.server.domain.WordConcept;
 import app.server.domain.custom.PartOfSpeech;
 
+import java.util.Map;
+
 public class WordConceptResource extends AbstractResource<WordConcept> implements IResource<WordConcept> {
 
+    /**
+     * Поля ресурса, доступные для выборки через fields, и соответствующие им пути в сущности
+     */
+    public static final Map<String, String> FIELDS = Map.of(
+            "id", "id",
+            "wordId", "word.id",
+            "conceptId", "concept.id",
+            "partOfSpeech", "partOfSpeech"
+    );
+
     private Long id;
     private Long wordId;
     private Long conceptId;
@@ -3,8 +3,19 @@ package app.server.resource;
 import app.server.domain.Language;
 import app.server.domain.Word;
 
+import java.util.Map;
+
 public class WordResource extends AbstractResource<Word> implements IResource<Word> {
 
+    /**
+     * Поля ресурса, доступные для выборки через fields, и соответствующие им пути в сущности
+     */
+    public static final Map<String, String> FIELDS = Map.of(
+            "id", "id",
+            "value", "value",
+            "languageId", "language.id"
+    );
+
     private Long id;
     private String value;
     private Integer languageId;
@@ -1,44 +1,93 @@
 package app.server.service;
 
+import app.server.config.ReplicaRoutingDataSource;
 import app.server.domain.Concept;
+import app.server.repository.BatchInserter;
+import app.server.repository.CriteriaQueryCache;
+import app.server.repository.EntityCursor;
 import app.server.repository.ConceptRepository;
+import app.server.repository.IRepository;
+import app.server.util.CursorPage;
 import app.server.util.QueryData;
+import app.server.validators.ErrorCode;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.transaction.Transactional;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Spliterator;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class ConceptJPAService implements JPAService<Concept, Long> {
 
     private final ConceptRepository repository;
     private final EntityManager entityManager;
+    private final CriteriaQueryCache queryCache;
+    private final RowCountEstimator countEstimator;
+    private final EntityCursor entityCursor;
+    private final BatchInserter batchInserter;
 
-    public ConceptJPAService(ConceptRepository repository, EntityManager entityManager) {
+    public ConceptJPAService(ConceptRepository repository, EntityManager entityManager, CriteriaQueryCache queryCache,
+                             RowCountEstimator countEstimator, EntityCursor entityCursor,
+                             BatchInserter batchInserter) {
         this.repository = repository;
         this.entityManager = entityManager;
+        this.queryCache = queryCache;
+        this.countEstimator = countEstimator;
+        this.entityCursor = entityCursor;
+        this.batchInserter = batchInserter;
     }
 
     @Override
-    public Spliterator<Concept> getAll() {
-        return repository.findAll().spliterator();
+    public void forEach(boolean expand, EntityCursor.RowHandler<? super Concept> handler) throws IOException {
+        entityCursor.forEach(Concept.class, expand ? Concept.EXPAND_GRAPH : null, handler);
     }
 
     @Override
-    public List<Concept> getAll(QueryData queryData) {
-        CriteriaQuery<Concept> criteriaQuery = repository.getCriteriaQuery(entityManager.getCriteriaBuilder(), queryData);
-        TypedQuery<Concept> query = entityManager.createQuery(criteriaQuery);
+    @Transactional(readOnly = true)
+    public CursorPage<Concept> getAll(QueryData queryData) {
+        TypedQuery<Concept> query = queryCache.createQuery(entityManager, repository, queryData);
+        if (Boolean.TRUE.equals(queryData.getExpand())) {
+            query.setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(Concept.EXPAND_GRAPH));
+        }
+        List<Concept> page = repository.getAll(query, queryData);
+        return new CursorPage<>(page, repository.getNextCursor(page, queryData));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Tuple> getAll(QueryData queryData, Map<String, String> fieldPaths) {
+        CriteriaQuery<Tuple> criteriaQuery = repository.getTupleQuery(entityManager.getCriteriaBuilder(), queryData,
+                fieldPaths);
+        TypedQuery<Tuple> query = entityManager.createQuery(criteriaQuery);
+        repository.setParameters(query, entityManager.getMetamodel(), queryData);
         return repository.getAll(query, queryData);
     }
 
     @Override
     public Optional<Concept> get(Long id) {
-        return repository.findById(id);
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            return repository.findById(id);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Concept> get(Long id, boolean expand) {
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            return expand ? repository.findExpandedById(id) : get(id);
+        }
     }
 
     @Override
@@ -46,6 +95,44 @@ public class ConceptJPAService implements JPAService<Concept, Long> {
         return repository.save(concept);
     }
 
+    @Override
+    @Transactional
+    public List<Long> saveAll(List<Concept> concepts) {
+        return batchInserter.persistAll(concepts, this::resolveReferences);
+    }
+
+    @Override
+    public void checkReferences(List<Concept> concepts, String[] errors) {
+        Set<Long> parentIds = concepts.stream()
+                .filter(Objects::nonNull)
+                .map(Concept::getParent)
+                .filter(Objects::nonNull)
+                .map(Concept::getId)
+                .collect(Collectors.toSet());
+        Set<Long> existing;
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            existing = new HashSet<>(IRepository.findByChunks(parentIds, repository::findExistingIds));
+        }
+
+        for (int i = 0; i < errors.length; i++) {
+            Concept concept = concepts.get(i);
+            if (concept != null && concept.getParent() != null && !existing.contains(concept.getParent().getId())) {
+                errors[i] = ErrorCode.FK_INSERT_UPDATE_CONSTRAINT.name();
+            }
+        }
+    }
+
+    /**
+     * Заменяет заглушки связанных сущностей (с одним id) ссылками из контекста персистентности пакетной записи:
+     * после его очистки ранее полученные ссылки к нему уже не относятся
+     */
+    private void resolveReferences(Concept concept) {
+        Concept parent = concept.getParent();
+        if (parent != null && parent.getId() != null) {
+            concept.setParent(entityManager.getReference(Concept.class, parent.getId()));
+        }
+    }
+
     @Override
     public Concept update(Concept concept) {
         return repository.saveAndFlush(concept);
@@ -54,7 +141,8 @@ public class ConceptJPAService implements JPAService<Concept, Long> {
     @Override
     @Transactional
     public Optional<Concept> delete(Long id) {
-        Optional<Concept> concept = get(id);
+        // связанные сущности загружаются сразу: удалённую сущность в ответе уже не дозагрузить
+        Optional<Concept> concept = get(id, true);
         if (concept.isPresent()) {
             repository.deleteById(id);
         }
@@ -66,4 +154,26 @@ public class ConceptJPAService implements JPAService<Concept, Long> {
     public long countAll() {
         return repository.count();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countAll(QueryData queryData) {
+        CriteriaQuery<Long> criteriaQuery = repository.getCountQuery(entityManager.getCriteriaBuilder(), queryData);
+        TypedQuery<Long> query = entityManager.createQuery(criteriaQuery);
+        repository.setFilterParameters(query, queryData);
+        return query.getSingleResult();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countAll(boolean approximate) {
+        if (approximate) {
+            OptionalLong estimate = countEstimator.estimate(Concept.class);
+            if (estimate.isPresent()) {
+                return estimate.getAsLong();
+            }
+        }
+
+        return countAll();
+    }
 }
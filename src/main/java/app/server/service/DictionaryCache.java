@@ -0,0 +1,195 @@
+package app.server.service;
+
+import app.server.domain.Language;
+import app.server.util.FileFormat;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш сгенерированных словарей на диске. Ключ файла - (fromId, toId, формат, версия данных). Одновременные
+ * промахи по одному ключу ждут одну генерацию; после записи новой версии файлы более старых версий для той же пары
+ * языков и формата удаляются. Файлы отдаются открытыми ({@link #open(Path)}): удаление открытого файла не прерывает
+ * его чтение
+ */
+@Service
+public class DictionaryCache {
+
+    private static final String PROP_CACHE_DIRECTORY = "dictionary.cache.directory";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Имена файлов кэша: сгенерированные словари и временные файлы незавершённой генерации
+     */
+    private static final Pattern CACHE_FILE = Pattern.compile("\\d+-\\d+-.+\\.(tmp|"
+            + Arrays.stream(FileFormat.values()).map(FileFormat::name).collect(Collectors.joining("|")) + ")");
+
+    private final DictionaryService service;
+    private final Path directory;
+    private final Map<String, CompletableFuture<Path>> renders = new ConcurrentHashMap<>();
+    // открытие файла и удаление старых версий не пересекаются: файл не исчезает между проверкой и открытием
+    private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+
+    public DictionaryCache(DictionaryService service, Environment env) throws IOException {
+        this.service = service;
+        this.directory = Paths.get(env.getRequiredProperty(PROP_CACHE_DIRECTORY));
+
+        Files.createDirectories(directory);
+        clear();
+    }
+
+    /**
+     * Открывает файл словаря, при необходимости сгенерировав его
+     */
+    public FileChannel open(Language from, Language to, FileFormat format, DictionaryVersion.Version version)
+            throws IOException {
+        try {
+            return open(get(from, to, format, version));
+        } catch (NoSuchFileException exception) {
+            // файл вытеснен более новой версией между генерацией и открытием
+            return open(get(from, to, format, version));
+        }
+    }
+
+    /**
+     * @throws NoSuchFileException файл вытеснен из кэша более новой версией
+     */
+    public FileChannel open(Path file) throws IOException {
+        fileLock.readLock().lock();
+        try {
+            return FileChannel.open(file);
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    public Path get(Language from, Language to, FileFormat format, DictionaryVersion.Version version)
+            throws IOException {
+        return get(from, to, format, version, processed -> {});
+    }
+
+    /**
+     * @param progress получает количество обработанных статей, только если генерацию выполняет этот вызов
+     */
+    public Path get(Language from, Language to, FileFormat format, DictionaryVersion.Version version,
+                    LongConsumer progress) throws IOException {
+        String name = getFileName(from, to, format, version.toString());
+        Path file = directory.resolve(name);
+        if (Files.exists(file)) {
+            return file;
+        }
+
+        CompletableFuture<Path> render = new CompletableFuture<>();
+        CompletableFuture<Path> running = renders.putIfAbsent(name, render);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            // файл мог появиться, пока предыдущая генерация этого ключа завершалась
+            if (!Files.exists(file)) {
+                generate(from, to, format, progress, file);
+                evictOlder(from, to, format, version);
+            }
+            render.complete(file);
+            return file;
+        } catch (IOException | RuntimeException exception) {
+            render.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            renders.remove(name, render);
+        }
+    }
+
+    private void generate(Language from, Language to, FileFormat format, LongConsumer progress, Path file)
+            throws IOException {
+        Path temp = Files.createTempFile(directory, getPrefix(from, to), TEMP_SUFFIX);
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            service.generate(from, to, format, stream, progress);
+        } catch (IOException | RuntimeException exception) {
+            Files.deleteIfExists(temp);
+            throw exception;
+        }
+
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path await(CompletableFuture<Path> render) throws IOException {
+        try {
+            return render.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the dictionary generation");
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    /**
+     * Удаляет файлы версий старше записанной: генерация старой версии, завершившаяся позже, не удаляет новую
+     */
+    private void evictOlder(Language from, Language to, FileFormat format, DictionaryVersion.Version actual) {
+        String prefix = getPrefix(from, to);
+        String suffix = "." + format.name();
+        fileLock.writeLock().lock();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, getFileName(from, to, format, "*"))) {
+            for (Path file: files) {
+                String name = file.getFileName().toString();
+                String version = name.substring(prefix.length(), name.length() - suffix.length());
+                if (actual.isNewerThan(version)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет файлы кэша, оставшиеся от прежнего запуска; прочие файлы каталога не трогает
+     */
+    private void clear() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file: files) {
+                if (Files.isRegularFile(file) && CACHE_FILE.matcher(file.getFileName().toString()).matches()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private String getPrefix(Language from, Language to) {
+        return from.getId() + "-" + to.getId() + "-";
+    }
+
+    private String getFileName(Language from, Language to, FileFormat format, String version) {
+        return getPrefix(from, to) + version + "." + format.name();
+    }
+}
@@ -1,70 +1,171 @@
 package app.server.service;
 
+import app.server.config.ReplicaRoutingDataSource;
 import app.server.domain.Language;
+import app.server.domain.custom.PartOfSpeech;
+import app.server.service.generators.DelimitedGenerator;
 import app.server.service.generators.DocGeneratorService;
 import app.server.service.generators.DocxGenerator;
 import app.server.service.generators.ExcelGeneration;
+import app.server.service.generators.JsonLinesGenerator;
 import app.server.service.generators.PDFGenerator;
+import app.server.service.generators.StreamingDocxGenerator;
+import app.server.service.generators.pdf.FontRegistry;
+import app.server.util.DefinitionIterator;
 import app.server.util.FileFormat;
 import app.server.util.Result;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
 import javax.persistence.Query;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.EnumMap;
-import java.util.List;
-import java.util.Map;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class DictionaryService {
 
-    private final EntityManager entityManager;
+    private static final int FETCH_SIZE = 1_000;
+    private static final String PROP_DICTIONARY_AGGREGATE = "dictionary.aggregate";
+    private static final String PROP_DOCX_STREAMING = "dictionary.docx.streaming";
 
-    private final Map<FileFormat, DocGeneratorService> docGenerators;
+    private static final String CONCEPT_SEPARATOR = "\u001F";
+    private static final String WORD_SEPARATOR = "\u001E";
 
-    {
-        docGenerators = new EnumMap<>(FileFormat.class);
-        docGenerators.put(FileFormat.pdf, new PDFGenerator());
-        docGenerators.put(FileFormat.docx, new DocxGenerator());
-        docGenerators.put(FileFormat.xlsx, new ExcelGeneration());
-    }
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean aggregate;
+
+    private final Map<FileFormat, DocGeneratorService> docGenerators;
 
     public final static String query = """
             SELECT new app.server.util.Result(w1.value, wc1.partOfSpeech, w2.value, wc1.concept.id) FROM word_concept wc1
                 	LEFT JOIN Word w1 ON wc1.word = w1
                 	LEFT JOIN word_concept wc2 ON wc1.concept = wc2.concept
                 	LEFT JOIN Word w2 ON wc2.word = w2
-                	WHERE w1.language = :languageFrom AND w2.language = :languageTo
-                	ORDER BY w1.value ASC
+                	WHERE w1.language.id = :languageFrom AND w2.language.id = :languageTo
+                	ORDER BY w1.value ASC, wc1.partOfSpeech ASC
             """;
 
-    public DictionaryService(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    /**
+     * Запрос, группирующий переводы на стороне БД: одна строка на пару (слово, часть речи), переводы одного понятия
+     * разделены символом {@link #WORD_SEPARATOR}, переводы разных понятий - символом {@link #CONCEPT_SEPARATOR}
+     */
+    public final static String aggregatedQuery = """
+            SELECT grouped.from_word, grouped.part_of_speech,
+                	string_agg(grouped.to_words, chr(31) ORDER BY grouped.concept_id) AS definitions
+            FROM (
+                	SELECT w1.value AS from_word, wc1.part_of_speech, wc1.concept_id,
+                	       string_agg(w2.value, chr(30) ORDER BY w2.value) AS to_words
+                	FROM word_concept wc1
+                	JOIN word w1 ON wc1.word_id = w1.id
+                	JOIN word_concept wc2 ON wc1.concept_id = wc2.concept_id
+                	JOIN word w2 ON wc2.word_id = w2.id
+                	WHERE w1.language_id = :languageFrom AND w2.language_id = :languageTo
+                	GROUP BY w1.value, wc1.part_of_speech, wc1.concept_id
+            ) grouped
+            GROUP BY grouped.from_word, grouped.part_of_speech
+            ORDER BY grouped.from_word ASC, grouped.part_of_speech ASC
+            """;
+
+    public DictionaryService(EntityManagerFactory entityManagerFactory, FontRegistry fontRegistry, Environment env) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.aggregate = env.getProperty(PROP_DICTIONARY_AGGREGATE, Boolean.class, Boolean.TRUE);
+
+        boolean docxStreaming = env.getProperty(PROP_DOCX_STREAMING, Boolean.class, Boolean.TRUE);
+
+        this.docGenerators = new EnumMap<>(FileFormat.class);
+        docGenerators.put(FileFormat.pdf, new PDFGenerator(fontRegistry));
+        docGenerators.put(FileFormat.docx, docxStreaming ? new StreamingDocxGenerator() : new DocxGenerator());
+        docGenerators.put(FileFormat.xlsx, new ExcelGeneration());
+        docGenerators.put(FileFormat.csv, DelimitedGenerator.csv());
+        docGenerators.put(FileFormat.tsv, DelimitedGenerator.tsv());
+        docGenerators.put(FileFormat.jsonl, new JsonLinesGenerator());
     }
 
-    public Resource generate(Language from, Language to, FileFormat format) throws IOException {
-        List<Result> resultList = getResults(from, to);
+    /**
+     * Генерирует словарь и пишет его напрямую в поток. Строки читаются однонаправленным курсором порциями по
+     * {@link #FETCH_SIZE}, поэтому словарь целиком в памяти не хранится
+     */
+    public void generate(Language from, Language to, FileFormat format, OutputStream stream) throws IOException {
+        generate(from, to, format, stream, processed -> {});
+    }
 
-        ByteArrayOutputStream stream = docGenerators.get(format).generate(from.getName(), to.getName(), resultList);
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(stream.toByteArray());
-        InputStreamResource resource = new InputStreamResource(inputStream);
+    /**
+     * То же, что {@link #generate(Language, Language, FileFormat, OutputStream)}, но после обработки каждой
+     * словарной статьи сообщает общее количество обработанных статей
+     */
+    public void generate(Language from, Language to, FileFormat format, OutputStream stream, LongConsumer progress)
+            throws IOException {
+        // словарь кэшируется под номером версии (см. DictionaryCache): выборка с отстающей реплики сохранила бы
+        // под новой версией старые данные, поэтому она выполняется на основной БД
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            generate(from, to, format, stream, progress, entityManager);
+        }
+    }
+
+    private void generate(Language from, Language to, FileFormat format, OutputStream stream, LongConsumer progress,
+                          EntityManager entityManager) throws IOException {
+        // драйвер PostgreSQL читает строки порциями (серверным курсором) только вне режима autocommit
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            try (Stream<Result.Definition> definitions = aggregate ? getDefinitions(entityManager, from, to)
+                    : getGroupedResults(entityManager, from, to)) {
+                long[] processed = {0};
+                Iterator<Result.Definition> iterator = definitions
+                        .peek(definition -> progress.accept(++processed[0]))
+                        .iterator();
+                docGenerators.get(format).generate(from.getName(), to.getName(), iterator, stream);
+            }
+        } finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            entityManager.close();
+        }
+    }
 
-        inputStream.close();
-        stream.close();
+    private Stream<Result.Definition> getGroupedResults(EntityManager entityManager, Language from, Language to) {
+        Stream<Result> results = entityManager.createQuery(DictionaryService.query, Result.class)
+                .setParameter("languageFrom", from.getId())
+                .setParameter("languageTo", to.getId())
+                .setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
 
-        return resource;
+        Spliterator<Result.Definition> definitions = Spliterators.spliteratorUnknownSize(
+                new DefinitionIterator(results.iterator()), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(definitions, false).onClose(results::close);
     }
 
-    private List<Result> getResults(Language from, Language to) {
-        Query query = entityManager.createQuery(DictionaryService.query, Result.class);
-        query = query.setParameter("languageFrom", from)
-                .setParameter("languageTo", to);
+    @SuppressWarnings("unchecked")
+    private Stream<Result.Definition> getDefinitions(EntityManager entityManager, Language from, Language to) {
+        Query query = entityManager.createNativeQuery(DictionaryService.aggregatedQuery)
+                .setParameter("languageFrom", from.getId())
+                .setParameter("languageTo", to.getId())
+                .setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE);
+
+        Stream<Object[]> rows = query.getResultStream();
+        return rows.map(this::toDefinition);
+    }
+
+    private Result.Definition toDefinition(Object[] row) {
+        Result.DefinitionKey key = new Result.DefinitionKey((String) row[0], PartOfSpeech.valueOf((String) row[1]));
+        Result.DefinitionValues values = new Result.DefinitionValues();
+
+        String[] concepts = ((String) row[2]).split(CONCEPT_SEPARATOR);
+        for (int i = 0; i < concepts.length; i++) {
+            values.add((long) i, Arrays.asList(concepts[i].split(WORD_SEPARATOR)));
+        }
 
-        return (List<Result>) query.getResultList();
+        return new Result.Definition(key, values);
     }
 }
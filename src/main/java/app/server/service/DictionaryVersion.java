@@ -0,0 +1,73 @@
+package app.server.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Версия данных словарной базы. Увеличивается при каждом изменении слов, языков и связей слово-понятие;
+ * используется как часть ключа кэша сгенерированных словарей и ETag
+ */
+@Component
+public class DictionaryVersion {
+
+    public static class Version {
+
+        private final long epoch;
+        private final long number;
+        private final long timestamp;
+
+        private Version(long epoch, long number, long timestamp) {
+            this.epoch = epoch;
+            this.number = number;
+            this.timestamp = timestamp;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Сравнивает с версией в виде {@link #toString()}: версии прежних запусков (с меньшей эпохой) старше любой
+         * версии текущего; нераспознанная строка не считается старше
+         */
+        public boolean isNewerThan(String version) {
+            int separator = version.indexOf('.');
+            if (separator < 0) {
+                return false;
+            }
+
+            try {
+                long otherEpoch = Long.parseUnsignedLong(version.substring(0, separator), 16);
+                long otherNumber = Long.parseLong(version.substring(separator + 1));
+                return otherEpoch != epoch ? Long.compareUnsigned(otherEpoch, epoch) < 0 : otherNumber < number;
+            } catch (NumberFormatException exception) {
+                return false;
+            }
+        }
+
+        private Version next() {
+            return new Version(epoch, number + 1, System.currentTimeMillis());
+        }
+
+        @Override
+        public String toString() {
+            return Long.toHexString(epoch) + "." + number;
+        }
+    }
+
+    private final AtomicReference<Version> version;
+
+    public DictionaryVersion() {
+        long now = System.currentTimeMillis();
+        this.version = new AtomicReference<>(new Version(now, 0, now));
+    }
+
+    public Version get() {
+        return version.get();
+    }
+
+    public void advance() {
+        version.updateAndGet(Version::next);
+    }
+}
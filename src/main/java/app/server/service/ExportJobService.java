@@ -0,0 +1,155 @@
+package app.server.service;
+
+import app.server.domain.Language;
+import app.server.util.ExportJob;
+import app.server.util.ExportJobStatus;
+import app.server.util.ExportMetrics;
+import app.server.util.FileFormat;
+import app.server.validators.ErrorCode;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Фоновая генерация словарей. Одновременно выполняется не более {@link #PROP_POOL_SIZE} заданий, ещё не более
+ * {@link #PROP_QUEUE_CAPACITY} ждут в очереди; при переполненной очереди задание отклоняется с кодом 503
+ */
+@Service
+public class ExportJobService {
+
+    private static final String PROP_POOL_SIZE = "dictionary.jobs.pool-size";
+    private static final String PROP_QUEUE_CAPACITY = "dictionary.jobs.queue-capacity";
+    private static final String PROP_RETENTION_MINUTES = "dictionary.jobs.retention-minutes";
+
+    private final DictionaryCache cache;
+    private final DictionaryVersion dictionaryVersion;
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long retentionMillis;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong waitMillis = new AtomicLong();
+    private final AtomicLong renderMillis = new AtomicLong();
+    private final LongAccumulator maxRenderMillis = new LongAccumulator(Math::max, 0);
+
+    public ExportJobService(DictionaryCache cache, DictionaryVersion dictionaryVersion, Environment env) {
+        this.cache = cache;
+        this.dictionaryVersion = dictionaryVersion;
+
+        int poolSize = env.getProperty(PROP_POOL_SIZE, Integer.class, 2);
+        this.queueCapacity = env.getProperty(PROP_QUEUE_CAPACITY, Integer.class, 16);
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(env.getProperty(PROP_RETENTION_MINUTES, Long.class, 60L));
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("export-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public ExportJob submit(Language from, Language to, FileFormat format, String fileName) {
+        purge();
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), from.getId(), to.getId(), format, fileName);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, from, to));
+        } catch (RejectedExecutionException exception) {
+            jobs.remove(job.getId());
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "export_queue_full");
+        }
+
+        submitted.incrementAndGet();
+        return job;
+    }
+
+    public Optional<ExportJob> get(String id) {
+        purge();
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public ExportMetrics getMetrics() {
+        ExportMetrics metrics = new ExportMetrics();
+        metrics.setPoolSize(executor.getMaximumPoolSize());
+        metrics.setActiveCount(executor.getActiveCount());
+        metrics.setQueueDepth(executor.getQueue().size());
+        metrics.setQueueCapacity(queueCapacity);
+
+        long completed = this.completed.get();
+        long failed = this.failed.get();
+        long finished = completed + failed;
+        metrics.setSubmitted(submitted.get());
+        metrics.setCompleted(completed);
+        metrics.setFailed(failed);
+        metrics.setRejected(rejected.get());
+
+        if (finished > 0) {
+            metrics.setAverageWaitMillis(waitMillis.get() / finished);
+            metrics.setAverageRenderMillis(renderMillis.get() / finished);
+        }
+        metrics.setMaxRenderMillis(maxRenderMillis.get());
+
+        return metrics;
+    }
+
+    /**
+     * Открывает файл завершённого задания
+     *
+     * @throws java.nio.file.NoSuchFileException файл вытеснен из кэша более новой версией словаря
+     */
+    public FileChannel openFile(ExportJob job) throws IOException {
+        return cache.open(job.getFile());
+    }
+
+    private void run(ExportJob job, Language from, Language to) {
+        long startedAt = System.currentTimeMillis();
+        job.setStartedAt(startedAt);
+        job.setStatus(ExportJobStatus.RUNNING);
+        waitMillis.addAndGet(startedAt - job.getCreatedAt());
+
+        try {
+            Path file = cache.get(from, to, job.getFormat(), dictionaryVersion.get(), job::setProcessed);
+            job.setFile(file);
+            job.setStatus(ExportJobStatus.DONE);
+            completed.incrementAndGet();
+        } catch (Exception exception) {
+            exception.printStackTrace();
+            job.setError(ErrorCode.UNKNOWN_ERROR.name());
+            job.setStatus(ExportJobStatus.FAILED);
+            failed.incrementAndGet();
+        } finally {
+            long finishedAt = System.currentTimeMillis();
+            job.setFinishedAt(finishedAt);
+            renderMillis.addAndGet(finishedAt - startedAt);
+            maxRenderMillis.accumulate(finishedAt - startedAt);
+        }
+    }
+
+    private void purge() {
+        long threshold = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.getStatus().isFinished() && job.getFinishedAt() < threshold);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,21 +1,82 @@
 package app.server.service;
 
+import app.server.repository.EntityCursor;
+import app.server.util.CursorPage;
 import app.server.util.QueryData;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.Tuple;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Spliterator;
 
 public interface JPAService<T, ID> {
 
-    Spliterator<T> getAll();
-    List<T> getAll(QueryData queryData);
+    /**
+     * Обходит все строки однонаправленным курсором, не загружая таблицу в память (см. {@link EntityCursor})
+     *
+     * @param expand загрузить связанные сущности тем же запросом (по графу загрузки сущности)
+     */
+    void forEach(boolean expand, EntityCursor.RowHandler<? super T> handler) throws IOException;
+
+    /**
+     * Страница выборки по фильтру. Токен продолжения строится в той же транзакции: значения столбцов сортировки
+     * по связям (например "language.name") читаются из ленивых связей, вне транзакции недоступных
+     */
+    CursorPage<T> getAll(QueryData queryData);
+
+    /**
+     * Выборка по фильтру только заданных столбцов, без загрузки сущностей
+     *
+     * @param fieldPaths псевдоним элемента кортежа - путь в сущности
+     */
+    List<Tuple> getAll(QueryData queryData, Map<String, String> fieldPaths);
+
+    /**
+     * Чтение по ключу нужно и сразу после записи (ответ на запись, проверки перед ней), поэтому выполняется
+     * на основной БД, а не на реплике
+     */
     Optional<T> get(ID id);
+
+    /**
+     * @param expand загрузить связанные сущности тем же запросом (по графу загрузки сущности)
+     */
+    Optional<T> get(ID id, boolean expand);
     T save(T entity);
+
+    /**
+     * Сохраняет новые сущности одной транзакцией пакетами JDBC (см. {@link app.server.repository.BatchInserter})
+     *
+     * @return идентификаторы в порядке сущностей
+     */
+    @Transactional
+    List<ID> saveAll(List<T> entities);
+
+    /**
+     * Проверяет ссылки пакета новых сущностей на другие сущности запросами на весь пакет, а не на каждый элемент.
+     * Запросы выполняются на основной БД: с отстающей реплики только что созданные сущности не видны
+     *
+     * @param entities сущности по позициям пакета (null - элемент уже отклонён)
+     * @param errors   коды ошибок по позициям пакета, дополняются найденными
+     */
+    default void checkReferences(List<T> entities, String[] errors) {
+    }
     T update(T entity);
 
     @Transactional
     Optional<T> delete(ID id);
     long countAll();
+
+    /**
+     * Количество строк, удовлетворяющих фильтрам столбцов queryData (сортировка, курсор и границы страницы
+     * не учитываются)
+     */
+    long countAll(QueryData queryData);
+
+    /**
+     * @param approximate вернуть оценку по статистике планировщика (см. {@link RowCountEstimator}); если статистики
+     *                    нет, считается точное количество
+     */
+    long countAll(boolean approximate);
 }
@@ -0,0 +1,102 @@
+package app.server.service;
+
+import app.server.config.ReplicaRoutingDataSource;
+import app.server.domain.Language;
+import app.server.repository.LanguageRepository;
+import app.server.util.CacheStatistics;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш языков вместе с множествами символов их алфавитов. Языков немного и меняются они редко, а нужны при каждой
+ * записи слова и выгрузке словаря. Хранятся отсоединённые копии сущностей, поэтому один объект безопасно
+ * разделяется между запросами; отсутствующие языки не кэшируются. После изменения или удаления языка запись
+ * сбрасывается {@link #evict(Integer)}
+ */
+@Component
+public class LanguageCache {
+
+    private static class Entry {
+
+        private final Language language;
+        private final Set<Character> alphabet;
+
+        private Entry(Language language) {
+            this.language = copy(language);
+
+            String symbols = language.getAlphabet();
+            Set<Character> alphabet = new HashSet<>(symbols.length() * 2);
+            for (int i = 0; i < symbols.length(); i++) {
+                alphabet.add(symbols.charAt(i));
+            }
+            this.alphabet = Set.copyOf(alphabet);
+        }
+    }
+
+    private final LanguageRepository repository;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public LanguageCache(LanguageRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Копия сущности: изменения вызывающего кода не попадают в кэш
+     */
+    public Optional<Language> get(Integer id) {
+        return getEntry(id).map(entry -> copy(entry.language));
+    }
+
+    /**
+     * Символы алфавита языка (неизменяемое множество)
+     */
+    public Optional<Set<Character>> getAlphabet(Integer id) {
+        return getEntry(id).map(entry -> entry.alphabet);
+    }
+
+    public void evict(Integer id) {
+        // remove ждёт завершения загрузки этого же ключа, поэтому прочитанное до изменения значение не останется
+        entries.remove(id);
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(entries.size(), hits.get(), misses.get());
+    }
+
+    private Optional<Entry> getEntry(Integer id) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return Optional.of(entry);
+        }
+
+        misses.incrementAndGet();
+        return Optional.ofNullable(entries.computeIfAbsent(id, this::load));
+    }
+
+    /**
+     * Запись живёт до изменения языка, поэтому язык читается с основной БД: значение с отстающей реплики осталось бы
+     * в кэше устаревшим
+     */
+    private Entry load(Integer id) {
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            return repository.findById(id).map(Entry::new).orElse(null);
+        }
+    }
+
+    private static Language copy(Language language) {
+        Language copy = new Language();
+        copy.setId(language.getId());
+        copy.setName(language.getName());
+        copy.setAlphabet(language.getAlphabet());
+        return copy;
+    }
+}
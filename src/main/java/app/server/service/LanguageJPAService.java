@@ -1,54 +1,124 @@
 package app.server.service;
 
 import app.server.domain.Language;
+import app.server.repository.BatchInserter;
+import app.server.repository.CriteriaQueryCache;
+import app.server.repository.EntityCursor;
 import app.server.repository.LanguageRepository;
+import app.server.util.CursorPage;
 import app.server.util.QueryData;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.transaction.Transactional;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Spliterator;
+import java.util.OptionalLong;
+import java.util.Set;
 
 @Service
 public class LanguageJPAService implements JPAService<Language, Integer> {
 
     private final LanguageRepository repository;
     private final EntityManager entityManager;
+    private final CriteriaQueryCache queryCache;
+    private final DictionaryVersion dictionaryVersion;
+    private final RowCountEstimator countEstimator;
+    private final EntityCursor entityCursor;
+    private final BatchInserter batchInserter;
+    private final LanguageCache languageCache;
 
-    public LanguageJPAService(LanguageRepository repository, EntityManager entityManager) {
+    public LanguageJPAService(LanguageRepository repository, EntityManager entityManager,
+                              CriteriaQueryCache queryCache, DictionaryVersion dictionaryVersion,
+                              RowCountEstimator countEstimator, EntityCursor entityCursor,
+                              BatchInserter batchInserter, LanguageCache languageCache) {
         this.repository = repository;
         this.entityManager = entityManager;
+        this.queryCache = queryCache;
+        this.dictionaryVersion = dictionaryVersion;
+        this.countEstimator = countEstimator;
+        this.entityCursor = entityCursor;
+        this.batchInserter = batchInserter;
+        this.languageCache = languageCache;
     }
 
     @Override
-    public Spliterator<Language> getAll() {
-        return repository.findAll().spliterator();
+    public void forEach(boolean expand, EntityCursor.RowHandler<? super Language> handler) throws IOException {
+        entityCursor.forEach(Language.class, null, handler);
     }
 
     @Override
-    public List<Language> getAll(QueryData queryData) {
-        CriteriaQuery<Language> criteriaQuery = repository.getCriteriaQuery(entityManager.getCriteriaBuilder(), queryData);
-        TypedQuery<Language> query = entityManager.createQuery(criteriaQuery);
+    @Transactional(readOnly = true)
+    public CursorPage<Language> getAll(QueryData queryData) {
+        TypedQuery<Language> query = queryCache.createQuery(entityManager, repository, queryData);
+        List<Language> page = repository.getAll(query, queryData);
+        return new CursorPage<>(page, repository.getNextCursor(page, queryData));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Tuple> getAll(QueryData queryData, Map<String, String> fieldPaths) {
+        CriteriaQuery<Tuple> criteriaQuery = repository.getTupleQuery(entityManager.getCriteriaBuilder(), queryData,
+                fieldPaths);
+        TypedQuery<Tuple> query = entityManager.createQuery(criteriaQuery);
+        repository.setParameters(query, entityManager.getMetamodel(), queryData);
         return repository.getAll(query, queryData);
     }
 
+    /**
+     * Язык из {@link LanguageCache}: повторные обращения не идут в БД
+     */
     @Override
     public Optional<Language> get(Integer id) {
-        return repository.findById(id);
+        return languageCache.get(id);
+    }
+
+    /**
+     * Символы алфавита языка из {@link LanguageCache}
+     */
+    public Optional<Set<Character>> getAlphabet(Integer id) {
+        return languageCache.getAlphabet(id);
+    }
+
+    @Override
+    public Optional<Language> get(Integer id, boolean expand) {
+        return get(id);
     }
 
     @Override
     public Language save(Language language) {
-        return repository.save(language);
+        Language saved = repository.save(language);
+        dictionaryVersion.advance();
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<Integer> saveAll(List<Language> languages) {
+        List<Integer> ids = batchInserter.persistAll(languages, language -> {});
+        // версия меняется только после фиксации, иначе словарь новой версии мог бы быть построен без пакета
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                dictionaryVersion.advance();
+            }
+        });
+        return ids;
     }
 
     @Override
     public Language update(Language language) {
-        return repository.saveAndFlush(language);
+        Language updated = repository.saveAndFlush(language);
+        languageCache.evict(updated.getId());
+        dictionaryVersion.advance();
+        return updated;
     }
 
     @Override
@@ -57,6 +127,15 @@ public class LanguageJPAService implements JPAService<Language, Integer> {
         Optional<Language> language = get(id);
         if (language.isPresent()) {
             repository.deleteById(id);
+            // версия и кэш меняются после фиксации: до неё параллельный запрос построил бы словарь новой версии
+            // или снова загрузил бы в кэш удаляемый язык
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dictionaryVersion.advance();
+                    languageCache.evict(id);
+                }
+            });
         }
 
         return language;
@@ -66,4 +145,26 @@ public class LanguageJPAService implements JPAService<Language, Integer> {
     public long countAll() {
         return repository.count();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countAll(QueryData queryData) {
+        CriteriaQuery<Long> criteriaQuery = repository.getCountQuery(entityManager.getCriteriaBuilder(), queryData);
+        TypedQuery<Long> query = entityManager.createQuery(criteriaQuery);
+        repository.setFilterParameters(query, queryData);
+        return query.getSingleResult();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countAll(boolean approximate) {
+        if (approximate) {
+            OptionalLong estimate = countEstimator.estimate(Language.class);
+            if (estimate.isPresent()) {
+                return estimate.getAsLong();
+            }
+        }
+
+        return countAll();
+    }
 }
@@ -0,0 +1,53 @@
+package app.server.service;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.OptionalLong;
+
+/**
+ * Оценка количества строк таблицы по статистике планировщика PostgreSQL: плотность строк на страницу
+ * (pg_class.reltuples / relpages), собранная последним ANALYZE или autovacuum, умножается на текущий размер таблицы -
+ * так же оценивает размер таблицы сам планировщик. Оценка не требует чтения таблицы
+ */
+@Service
+public class RowCountEstimator {
+
+    private static final String ESTIMATE = """
+            SELECT (c.reltuples / c.relpages * (pg_relation_size(c.oid) / current_setting('block_size')::integer))::bigint
+            FROM pg_class c
+            WHERE c.oid = to_regclass(?) AND c.reltuples >= 0 AND c.relpages > 0
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+
+    public RowCountEstimator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    /**
+     * @return оценка количества строк таблицы сущности; пустое значение, если статистика ещё не собрана
+     */
+    public OptionalLong estimate(Class<?> entityClass) {
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersister(entityClass);
+        if (!(persister instanceof AbstractEntityPersister)) {
+            return OptionalLong.empty();
+        }
+
+        String table = ((AbstractEntityPersister) persister).getTableName();
+        try {
+            Long estimate = jdbcTemplate.query(ESTIMATE, resultSet -> resultSet.next() ? resultSet.getLong(1) : null,
+                    table);
+            return estimate == null ? OptionalLong.empty() : OptionalLong.of(estimate);
+        } catch (DataAccessException exception) {
+            return OptionalLong.empty();
+        }
+    }
+}
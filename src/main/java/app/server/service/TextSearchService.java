@@ -0,0 +1,143 @@
+package app.server.service;
+
+import app.server.domain.Concept;
+import app.server.domain.Word;
+import app.server.util.SearchMode;
+import org.hibernate.Hibernate;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+
+/**
+ * Поиск слов и понятий по подстроке и по сходству. При установленном расширении pg_trgm запросы обслуживаются
+ * триграммными GIN-индексами (см. db/pg_trgm.sql); без него поиск по подстроке выполняется тем же LIKE без индекса,
+ * а поиск по сходству заменяется поиском по подстроке
+ */
+@Service
+public class TextSearchService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private static final String TRIGRAM_CHECK = "SELECT EXISTS(SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')";
+    private static final String LANGUAGE_CONDITION = " AND w.language_id = :languageId";
+
+    private static final String WORD_SUBSTRING = """
+            SELECT w.* FROM word w
+            WHERE w.value ILIKE :pattern%s
+            ORDER BY w.value, w.id
+            LIMIT :limit
+            """;
+
+    private static final String WORD_SIMILAR = """
+            SELECT w.* FROM word w
+            WHERE w.value %% :text%s
+            ORDER BY similarity(w.value, :text) DESC, w.id
+            LIMIT :limit
+            """;
+
+    private static final String CONCEPT_SUBSTRING = """
+            SELECT c.* FROM concept c
+            WHERE c.name ILIKE :pattern
+            ORDER BY c.name, c.id
+            LIMIT :limit
+            """;
+
+    private static final String CONCEPT_SIMILAR = """
+            SELECT c.* FROM concept c
+            WHERE c.name % :text
+            ORDER BY similarity(c.name, :text) DESC, c.id
+            LIMIT :limit
+            """;
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean trigramAvailable;
+
+    public TextSearchService(EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param expand загрузить связанные сущности в той же транзакции: найденные слова выбираются без соединений,
+     *               а ленивые связи вне транзакции недоступны
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public List<Word> searchWords(String text, Integer languageId, SearchMode mode, int limit, boolean expand) {
+        boolean similar = useSimilarity(mode);
+        String condition = languageId == null ? "" : LANGUAGE_CONDITION;
+        String sql = String.format(similar ? WORD_SIMILAR : WORD_SUBSTRING, condition);
+
+        Query query = createQuery(sql, Word.class, text, similar, limit);
+        if (languageId != null) {
+            query.setParameter("languageId", languageId);
+        }
+
+        List<Word> words = (List<Word>) query.getResultList();
+        if (expand) {
+            words.forEach(word -> Hibernate.initialize(word.getLanguage()));
+        }
+
+        return words;
+    }
+
+    /**
+     * @param expand загрузить родительские понятия в той же транзакции (см. {@link #searchWords})
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public List<Concept> searchConcepts(String text, SearchMode mode, int limit, boolean expand) {
+        boolean similar = useSimilarity(mode);
+        String sql = similar ? CONCEPT_SIMILAR : CONCEPT_SUBSTRING;
+        List<Concept> concepts = (List<Concept>) createQuery(sql, Concept.class, text, similar, limit).getResultList();
+        if (expand) {
+            concepts.forEach(concept -> Hibernate.initialize(concept.getParent()));
+        }
+
+        return concepts;
+    }
+
+    private boolean useSimilarity(SearchMode mode) {
+        return mode == SearchMode.similar && isTrigramAvailable();
+    }
+
+    private Query createQuery(String sql, Class<?> entityClass, String text, boolean similar, int limit) {
+        Query query = entityManager.createNativeQuery(sql, entityClass);
+        if (similar) {
+            query.setParameter("text", text);
+        } else {
+            query.setParameter("pattern", "%" + escapeLike(text) + "%");
+        }
+
+        return query.setParameter("limit", limit);
+    }
+
+    private String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Наличие расширения pg_trgm проверяется при первом обращении и запоминается. Если проверка не удалась
+     * (ошибка доступа к БД), поиск выполняется без расширения, а проверка повторяется при следующем обращении
+     */
+    public boolean isTrigramAvailable() {
+        Boolean available = trigramAvailable;
+        if (available == null) {
+            try {
+                available = Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRIGRAM_CHECK, Boolean.class));
+            } catch (DataAccessException exception) {
+                return false;
+            }
+            trigramAvailable = available;
+        }
+
+        return available;
+    }
+}
@@ -1,60 +1,205 @@
 package app.server.service;
 
+import app.server.config.ReplicaRoutingDataSource;
+import app.server.domain.Concept;
+import app.server.domain.Word;
 import app.server.domain.WordConcept;
+import app.server.repository.BatchInserter;
+import app.server.repository.ConceptRepository;
+import app.server.repository.CriteriaQueryCache;
+import app.server.repository.EntityCursor;
+import app.server.repository.IRepository;
 import app.server.repository.WordConceptRepository;
+import app.server.repository.WordRepository;
+import app.server.util.CursorPage;
 import app.server.util.QueryData;
+import app.server.validators.ErrorCode;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaQuery;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Spliterator;
+import java.util.OptionalLong;
+import java.util.Set;
 
 @Service
 public class WordConceptJPAService implements JPAService<WordConcept, Long> {
 
     private final WordConceptRepository repository;
     private final EntityManager entityManager;
+    private final CriteriaQueryCache queryCache;
+    private final DictionaryVersion dictionaryVersion;
+    private final RowCountEstimator countEstimator;
+    private final EntityCursor entityCursor;
+    private final BatchInserter batchInserter;
+    private final WordRepository wordRepository;
+    private final ConceptRepository conceptRepository;
 
-    public WordConceptJPAService(WordConceptRepository repository, EntityManager entityManager) {
+    public WordConceptJPAService(WordConceptRepository repository, EntityManager entityManager,
+                                 CriteriaQueryCache queryCache, DictionaryVersion dictionaryVersion,
+                                 RowCountEstimator countEstimator, EntityCursor entityCursor,
+                                 BatchInserter batchInserter, WordRepository wordRepository,
+                                 ConceptRepository conceptRepository) {
         this.repository = repository;
         this.entityManager = entityManager;
+        this.queryCache = queryCache;
+        this.dictionaryVersion = dictionaryVersion;
+        this.countEstimator = countEstimator;
+        this.entityCursor = entityCursor;
+        this.batchInserter = batchInserter;
+        this.wordRepository = wordRepository;
+        this.conceptRepository = conceptRepository;
     }
 
     @Override
-    public Spliterator<WordConcept> getAll() {
-        return repository.findAll().spliterator();
+    public void forEach(boolean expand, EntityCursor.RowHandler<? super WordConcept> handler) throws IOException {
+        entityCursor.forEach(WordConcept.class, expand ? WordConcept.EXPAND_GRAPH : null, handler);
     }
 
     @Override
-    public List<WordConcept> getAll(QueryData queryData) {
-        CriteriaQuery<WordConcept> criteriaQuery = repository.getCriteriaQuery(entityManager.getCriteriaBuilder(), queryData);
-        TypedQuery<WordConcept> query = entityManager.createQuery(criteriaQuery);
+    @Transactional(readOnly = true)
+    public CursorPage<WordConcept> getAll(QueryData queryData) {
+        TypedQuery<WordConcept> query = queryCache.createQuery(entityManager, repository, queryData);
+        if (Boolean.TRUE.equals(queryData.getExpand())) {
+            query.setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(WordConcept.EXPAND_GRAPH));
+        }
+        List<WordConcept> page = repository.getAll(query, queryData);
+        return new CursorPage<>(page, repository.getNextCursor(page, queryData));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Tuple> getAll(QueryData queryData, Map<String, String> fieldPaths) {
+        CriteriaQuery<Tuple> criteriaQuery = repository.getTupleQuery(entityManager.getCriteriaBuilder(), queryData,
+                fieldPaths);
+        TypedQuery<Tuple> query = entityManager.createQuery(criteriaQuery);
+        repository.setParameters(query, entityManager.getMetamodel(), queryData);
         return repository.getAll(query, queryData);
     }
 
     @Override
     public Optional<WordConcept> get(Long id) {
-        return repository.findById(id);
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            return repository.findById(id);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<WordConcept> get(Long id, boolean expand) {
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            return expand ? repository.findExpandedById(id) : get(id);
+        }
     }
 
     @Override
     public WordConcept save(WordConcept wordConcept) {
-        return repository.save(wordConcept);
+        WordConcept saved = repository.save(wordConcept);
+        dictionaryVersion.advance();
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<Long> saveAll(List<WordConcept> wordConcepts) {
+        List<Long> ids = batchInserter.persistAll(wordConcepts, this::resolveReferences);
+        // версия меняется только после фиксации, иначе словарь новой версии мог бы быть построен без пакета
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                dictionaryVersion.advance();
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Кроме существования слов и понятий проверяет уникальность пары (слово, понятие) как в БД, так и внутри пакета
+     */
+    @Override
+    public void checkReferences(List<WordConcept> wordConcepts, String[] errors) {
+        Set<Long> wordIds = new HashSet<>();
+        Set<Long> conceptIds = new HashSet<>();
+        for (WordConcept wordConcept: wordConcepts) {
+            if (wordConcept != null) {
+                wordIds.add(wordConcept.getWord().getId());
+                conceptIds.add(wordConcept.getConcept().getId());
+            }
+        }
+
+        Set<Long> existingWords;
+        Set<Long> existingConcepts;
+        Set<List<Long>> links = new HashSet<>();
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            existingWords = new HashSet<>(IRepository.findByChunks(wordIds, wordRepository::findExistingIds));
+            existingConcepts = new HashSet<>(IRepository.findByChunks(conceptIds, conceptRepository::findExistingIds));
+            for (Object[] link: IRepository.findByChunks(wordIds, repository::findLinks)) {
+                links.add(List.of((Long) link[0], (Long) link[1]));
+            }
+        }
+
+        for (int i = 0; i < errors.length; i++) {
+            WordConcept wordConcept = wordConcepts.get(i);
+            if (wordConcept == null) {
+                continue;
+            }
+
+            Long wordId = wordConcept.getWord().getId();
+            Long conceptId = wordConcept.getConcept().getId();
+            if (!existingWords.contains(wordId) || !existingConcepts.contains(conceptId)) {
+                errors[i] = ErrorCode.FK_INSERT_UPDATE_CONSTRAINT.name();
+            } else if (!links.add(List.of(wordId, conceptId))) {
+                errors[i] = "word_concept_duplicate";
+            }
+        }
+    }
+
+    /**
+     * Заменяет заглушки связанных сущностей (с одним id) ссылками из контекста персистентности пакетной записи:
+     * после его очистки ранее полученные ссылки к нему уже не относятся
+     */
+    private void resolveReferences(WordConcept wordConcept) {
+        Word word = wordConcept.getWord();
+        if (word != null && word.getId() != null) {
+            wordConcept.setWord(entityManager.getReference(Word.class, word.getId()));
+        }
+
+        Concept concept = wordConcept.getConcept();
+        if (concept != null && concept.getId() != null) {
+            wordConcept.setConcept(entityManager.getReference(Concept.class, concept.getId()));
+        }
     }
 
     @Override
     public WordConcept update(WordConcept wordConcept) {
-        return repository.saveAndFlush(wordConcept);
+        WordConcept updated = repository.saveAndFlush(wordConcept);
+        dictionaryVersion.advance();
+        return updated;
     }
 
     @Override
+    @Transactional
     public Optional<WordConcept> delete(Long id) {
-        Optional<WordConcept> wordConcept = get(id);
+        // связанные сущности загружаются сразу: удалённую сущность в ответе уже не дозагрузить
+        Optional<WordConcept> wordConcept = get(id, true);
         if (wordConcept.isPresent()) {
             repository.deleteById(id);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dictionaryVersion.advance();
+                }
+            });
         }
 
         return wordConcept;
@@ -64,4 +209,26 @@ public class WordConceptJPAService implements JPAService<WordConcept, Long> {
     public long countAll() {
         return repository.count();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countAll(QueryData queryData) {
+        CriteriaQuery<Long> criteriaQuery = repository.getCountQuery(entityManager.getCriteriaBuilder(), queryData);
+        TypedQuery<Long> query = entityManager.createQuery(criteriaQuery);
+        repository.setFilterParameters(query, queryData);
+        return query.getSingleResult();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countAll(boolean approximate) {
+        if (approximate) {
+            OptionalLong estimate = countEstimator.estimate(WordConcept.class);
+            if (estimate.isPresent()) {
+                return estimate.getAsLong();
+            }
+        }
+
+        return countAll();
+    }
 }
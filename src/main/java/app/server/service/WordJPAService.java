@@ -1,69 +1,188 @@
 package app.server.service;
 
+import app.server.config.ReplicaRoutingDataSource;
+import app.server.domain.Language;
 import app.server.domain.Word;
+import app.server.repository.BatchInserter;
+import app.server.repository.CriteriaQueryCache;
+import app.server.repository.EntityCursor;
 import app.server.repository.WordRepository;
+import app.server.util.CursorPage;
 import app.server.util.QueryData;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.transaction.Transactional;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Spliterator;
+import java.util.OptionalLong;
 
 @Service
 public class WordJPAService implements JPAService<Word, Long>{
 
     private final WordRepository repository;
     private final EntityManager entityManager;
+    private final CriteriaQueryCache queryCache;
+    private final DictionaryVersion dictionaryVersion;
+    private final WordSuggestIndex suggestIndex;
+    private final RowCountEstimator countEstimator;
+    private final EntityCursor entityCursor;
+    private final BatchInserter batchInserter;
 
-    public WordJPAService(WordRepository repository, EntityManager entityManager) {
+    public WordJPAService(WordRepository repository, EntityManager entityManager, CriteriaQueryCache queryCache,
+                          DictionaryVersion dictionaryVersion, WordSuggestIndex suggestIndex,
+                          RowCountEstimator countEstimator, EntityCursor entityCursor,
+                          BatchInserter batchInserter) {
         this.repository = repository;
         this.entityManager = entityManager;
+        this.queryCache = queryCache;
+        this.dictionaryVersion = dictionaryVersion;
+        this.suggestIndex = suggestIndex;
+        this.countEstimator = countEstimator;
+        this.entityCursor = entityCursor;
+        this.batchInserter = batchInserter;
     }
 
     @Override
-    public Spliterator<Word> getAll() {
-        return repository.findAll().spliterator();
+    public void forEach(boolean expand, EntityCursor.RowHandler<? super Word> handler) throws IOException {
+        entityCursor.forEach(Word.class, expand ? Word.EXPAND_GRAPH : null, handler);
     }
 
     @Override
-    public List<Word> getAll(QueryData queryData) {
-        CriteriaQuery<Word> criteriaQuery = repository.getCriteriaQuery(entityManager.getCriteriaBuilder(), queryData);
-        TypedQuery<Word> query = entityManager.createQuery(criteriaQuery);
+    @Transactional(readOnly = true)
+    public CursorPage<Word> getAll(QueryData queryData) {
+        TypedQuery<Word> query = queryCache.createQuery(entityManager, repository, queryData);
+        if (Boolean.TRUE.equals(queryData.getExpand())) {
+            query.setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(Word.EXPAND_GRAPH));
+        }
+        List<Word> page = repository.getAll(query, queryData);
+        return new CursorPage<>(page, repository.getNextCursor(page, queryData));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Tuple> getAll(QueryData queryData, Map<String, String> fieldPaths) {
+        CriteriaQuery<Tuple> criteriaQuery = repository.getTupleQuery(entityManager.getCriteriaBuilder(), queryData,
+                fieldPaths);
+        TypedQuery<Tuple> query = entityManager.createQuery(criteriaQuery);
+        repository.setParameters(query, entityManager.getMetamodel(), queryData);
         return repository.getAll(query, queryData);
     }
 
     @Override
     public Optional<Word> get(Long id) {
-        return repository.findById(id);
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            return repository.findById(id);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Word> get(Long id, boolean expand) {
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            return expand ? repository.findExpandedById(id) : get(id);
+        }
     }
 
     @Override
     public Word save(Word word) {
-        return repository.save(word);
+        Word saved = repository.save(word);
+        dictionaryVersion.advance();
+        suggestIndex.put(saved);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<Long> saveAll(List<Word> words) {
+        List<Long> ids = batchInserter.persistAll(words, this::resolveReferences);
+        // версия словаря и индекс подсказок меняются только после фиксации: иначе словарь новой версии мог бы
+        // быть построен без пакета, а откаченный пакет попал бы в подсказки
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                dictionaryVersion.advance();
+                words.forEach(suggestIndex::put);
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Заменяет заглушки связанных сущностей (с одним id) ссылками из контекста персистентности пакетной записи:
+     * после его очистки ранее полученные ссылки к нему уже не относятся
+     */
+    private void resolveReferences(Word word) {
+        Language language = word.getLanguage();
+        if (language != null && language.getId() != null) {
+            word.setLanguage(entityManager.getReference(Language.class, language.getId()));
+        }
     }
 
     @Override
     public Word update(Word word) {
-        return repository.saveAndFlush(word);
+        Word updated = repository.saveAndFlush(word);
+        dictionaryVersion.advance();
+        suggestIndex.put(updated);
+        return updated;
     }
 
     @Override
     @Transactional
     public Optional<Word> delete(Long id) {
-        Optional<Word> word = get(id);
+        // связанные сущности загружаются сразу: удалённую сущность в ответе уже не дозагрузить
+        Optional<Word> word = get(id, true);
         if (word.isPresent()) {
             repository.deleteById(id);
+            // как и в saveAll: откаченное удаление не должно менять версию словаря и подсказки
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dictionaryVersion.advance();
+                    suggestIndex.remove(id);
+                }
+            });
         }
 
         return word;
     }
 
+    public List<String> suggest(Integer languageId, String prefix, int limit) {
+        return suggestIndex.suggest(languageId, prefix, limit);
+    }
+
     @Override
     public long countAll() {
         return repository.count();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countAll(QueryData queryData) {
+        CriteriaQuery<Long> criteriaQuery = repository.getCountQuery(entityManager.getCriteriaBuilder(), queryData);
+        TypedQuery<Long> query = entityManager.createQuery(criteriaQuery);
+        repository.setFilterParameters(query, queryData);
+        return query.getSingleResult();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countAll(boolean approximate) {
+        if (approximate) {
+            OptionalLong estimate = countEstimator.estimate(Word.class);
+            if (estimate.isPresent()) {
+                return estimate.getAsLong();
+            }
+        }
+
+        return countAll();
+    }
 }
@@ -0,0 +1,150 @@
+package app.server.service;
+
+import app.server.domain.Word;
+import app.server.util.PrefixTrie;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс для автодополнения слов по префиксу: отдельное префиксное дерево на каждый язык. Строится из таблицы
+ * word при первом обращении и далее обновляется {@link WordJPAService} при сохранении, изменении и удалении слов.
+ * Операции по идентификатору слова идемпотентны, поэтому изменение, пришедшее во время построения индекса,
+ * не учитывается дважды
+ */
+@Component
+public class WordSuggestIndex {
+
+    private static final String QUERY = "SELECT w.id, w.language.id, w.value FROM Word w";
+
+    private static class Entry {
+
+        private final Integer languageId;
+        private final String value;
+
+        private Entry(Integer languageId, String value) {
+            this.languageId = languageId;
+            this.value = value;
+        }
+    }
+
+    private static class LanguageTrie {
+
+        private final PrefixTrie trie = new PrefixTrie();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, LanguageTrie> tries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public WordSuggestIndex(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public List<String> suggest(Integer languageId, String prefix, int limit) {
+        load();
+
+        LanguageTrie languageTrie = tries.get(languageId);
+        if (languageTrie == null) {
+            return Collections.emptyList();
+        }
+
+        languageTrie.lock.readLock().lock();
+        try {
+            return languageTrie.trie.find(prefix, limit);
+        } finally {
+            languageTrie.lock.readLock().unlock();
+        }
+    }
+
+    public void put(Word word) {
+        if (isLoaded()) {
+            put(word.getId(), word.getLanguage().getId(), word.getValue());
+        }
+    }
+
+    public void remove(Long id) {
+        if (isLoaded()) {
+            entries.computeIfPresent(id, (key, entry) -> {
+                removeFromTrie(entry);
+                return null;
+            });
+        }
+    }
+
+    private void put(Long id, Integer languageId, String value) {
+        entries.compute(id, (key, entry) -> {
+            if (entry != null) {
+                removeFromTrie(entry);
+            }
+
+            Entry added = new Entry(languageId, value);
+            LanguageTrie languageTrie = tries.computeIfAbsent(languageId, language -> new LanguageTrie());
+            languageTrie.lock.writeLock().lock();
+            try {
+                languageTrie.trie.add(value);
+            } finally {
+                languageTrie.lock.writeLock().unlock();
+            }
+            return added;
+        });
+    }
+
+    private void removeFromTrie(Entry entry) {
+        LanguageTrie languageTrie = tries.get(entry.languageId);
+        if (languageTrie == null) {
+            return;
+        }
+
+        languageTrie.lock.writeLock().lock();
+        try {
+            languageTrie.trie.remove(entry.value);
+        } finally {
+            languageTrie.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Изменения, пришедшие во время построения, ждут его окончания и затем применяются к готовому индексу
+     */
+    private boolean isLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                return loaded;
+            }
+        }
+        return true;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                entityManager.createQuery(QUERY, Object[].class)
+                        .getResultStream()
+                        .forEach(row -> put((Long) row[0], (Integer) row[1], (String) row[2]));
+            } finally {
+                entityManager.close();
+            }
+            loaded = true;
+        }
+    }
+}
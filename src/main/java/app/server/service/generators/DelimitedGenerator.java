@@ -0,0 +1,86 @@
+package app.server.service.generators;
+
+import app.server.util.Result;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Словарь в виде таблицы с разделителями: строка на каждое значение словарной статьи
+ * (слово, часть речи, номер значения, переводы через запятую). CSV пишется по RFC 4180 (поля с разделителем,
+ * кавычками или переводом строки заключаются в кавычки), в TSV табуляции и переводы строк заменяются пробелами
+ */
+public class DelimitedGenerator implements DocGeneratorService {
+
+    private static final String[] HEADER = {"word", "part_of_speech", "meaning", "translations"};
+
+    private final char delimiter;
+    private final boolean quoted;
+    private final String lineSeparator;
+
+    private DelimitedGenerator(char delimiter, boolean quoted, String lineSeparator) {
+        this.delimiter = delimiter;
+        this.quoted = quoted;
+        this.lineSeparator = lineSeparator;
+    }
+
+    public static DelimitedGenerator csv() {
+        return new DelimitedGenerator(',', true, "\r\n");
+    }
+
+    public static DelimitedGenerator tsv() {
+        return new DelimitedGenerator('\t', false, "\n");
+    }
+
+    @Override
+    public void generate(String languageFrom, String languageTo, Iterator<Result.Definition> definitions,
+                         OutputStream stream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        writeRow(writer, HEADER);
+
+        String[] row = new String[HEADER.length];
+        while (definitions.hasNext()) {
+            Result.Definition definition = definitions.next();
+            row[0] = definition.getKey().getWord();
+            row[1] = definition.getKey().getPartOfSpeech().name();
+
+            int meaning = 1;
+            for (List<String> translations: definition.getValues().getMeanings()) {
+                row[2] = Integer.toString(meaning++);
+                row[3] = String.join(", ", translations);
+                writeRow(writer, row);
+            }
+        }
+
+        writer.flush();
+    }
+
+    private void writeRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(delimiter);
+            }
+            writeField(writer, fields[i]);
+        }
+        writer.write(lineSeparator);
+    }
+
+    private void writeField(Writer writer, String field) throws IOException {
+        if (!quoted) {
+            writer.write(field.replace('\t', ' ').replace('\r', ' ').replace('\n', ' '));
+            return;
+        }
+
+        if (field.indexOf(delimiter) < 0 && field.indexOf('"') < 0 && field.indexOf('\r') < 0
+                && field.indexOf('\n') < 0) {
+            writer.write(field);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -2,11 +2,12 @@ package app.server.service.generators;
 
 import app.server.util.Result;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.List;
+import java.io.OutputStream;
+import java.util.Iterator;
 
 @FunctionalInterface
 public interface DocGeneratorService {
-    ByteArrayOutputStream generate(String languageFrom, String languageTo, List<Result> results) throws IOException;
+    void generate(String languageFrom, String languageTo, Iterator<Result.Definition> definitions,
+                  OutputStream stream) throws IOException;
 }
@@ -3,47 +3,42 @@ package app.server.service.generators;
 import app.server.util.Result;
 import org.apache.poi.xwpf.usermodel.*;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.io.OutputStream;
+import java.util.Iterator;
 
 public class DocxGenerator implements DocGeneratorService {
 
-    public ByteArrayOutputStream generate(String languageFrom, String languageTo, List<Result> results) throws IOException {
+    @Override
+    public void generate(String languageFrom, String languageTo, Iterator<Result.Definition> definitions,
+                         OutputStream stream) throws IOException {
         XWPFDocument document = new XWPFDocument();
         addTitle(document, languageFrom, languageTo);
-        createTable(results, document);
+        createTable(definitions, document);
 
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
         document.write(stream);
         document.close();
-
-        return stream;
     }
 
-    private void createTable(List<Result> results, XWPFDocument document) {
-        if (!results.isEmpty()) {
-            LinkedHashMap<Result.DefinitionKey, Result.DefinitionValues> map = results.stream()
-                    .collect(Collectors.toMap(Result::getDefinitionKey, Result::getDefinitionValues,
-                            Result.DefinitionValues::add, LinkedHashMap::new));
-            XWPFTable table = document.createTable(map.size(), 2);
-
-            int i = 0;
-            for (Map.Entry<Result.DefinitionKey, Result.DefinitionValues> entry: map.entrySet()) {
-                Result.DefinitionKey key = entry.getKey();
-                XWPFTableRow row = table.getRow(i);
+    private void createTable(Iterator<Result.Definition> definitions, XWPFDocument document) {
+        if (definitions.hasNext()) {
+            XWPFTable table = document.createTable(1, 2);
+
+            XWPFTableRow row = table.getRow(0);
+            while (definitions.hasNext()) {
+                Result.Definition definition = definitions.next();
+                Result.DefinitionKey key = definition.getKey();
                 XWPFTableCell cell = row.getCell(0);
                 XWPFParagraph paragraph = cell.addParagraph();
 
                 addFromWord(key, paragraph);
                 addPartOfSpeech(key, paragraph);
 
-                addToWord(entry.getValue(), paragraph);
+                addToWord(definition.getValues(), paragraph);
 
-                i++;
+                if (definitions.hasNext()) {
+                    row = table.createRow();
+                }
             }
         }
     }
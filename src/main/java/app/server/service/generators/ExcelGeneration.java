@@ -1,61 +1,90 @@
 package app.server.service.generators;
 
 import app.server.util.Result;
-import org.apache.poi.xssf.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.io.OutputStream;
+import java.util.Iterator;
 
+/**
+ * Генерация словаря в формате xlsx. В памяти хранится только "окно" из последних {@link #rowWindow} строк,
+ * остальные строки сбрасываются во временный файл
+ */
 public class ExcelGeneration implements DocGeneratorService {
 
-    @Override
-    public ByteArrayOutputStream generate(String languageFrom, String languageTo, List<Result> results) throws IOException {
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    public static final int DEFAULT_ROW_WINDOW = 100;
 
-        XSSFWorkbook workbook = new XSSFWorkbook();
+    private static final int COLUMNS_COUNT = 3;
+    private static final int COLUMN_PADDING = 2;
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
 
-        createTable(languageFrom, languageTo, results, workbook);
+    private final int rowWindow;
 
-        workbook.write(stream);
-        workbook.close();
+    public ExcelGeneration() {
+        this(DEFAULT_ROW_WINDOW);
+    }
 
-        return stream;
+    public ExcelGeneration(int rowWindow) {
+        this.rowWindow = rowWindow;
     }
 
-    private void createTable(String languageFrom, String languageTo, List<Result> results, XSSFWorkbook workbook) {
-        XSSFSheet workbookSheet = workbook.createSheet("dictionary");
+    @Override
+    public void generate(String languageFrom, String languageTo, Iterator<Result.Definition> definitions,
+                         OutputStream stream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+
+        try {
+            createTable(languageFrom, languageTo, definitions, workbook);
+            workbook.write(stream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
 
-        LinkedHashMap<Result.DefinitionKey, Result.DefinitionValues> map = results.stream()
-                .collect(Collectors.toMap(Result::getDefinitionKey, Result::getDefinitionValues,
-                        Result.DefinitionValues::add, LinkedHashMap::new));
+    private void createTable(String languageFrom, String languageTo, Iterator<Result.Definition> definitions,
+                             SXSSFWorkbook workbook) {
+        SXSSFSheet workbookSheet = workbook.createSheet("dictionary");
+        int[] columnLengths = new int[COLUMNS_COUNT];
 
-        int i = createTitle(workbookSheet, languageFrom, languageTo);
-        for (Map.Entry<Result.DefinitionKey, Result.DefinitionValues> entry: map.entrySet()) {
-            XSSFRow row = workbookSheet.createRow(i);
+        int i = createTitle(workbookSheet, languageFrom, languageTo, columnLengths);
+        while (definitions.hasNext()) {
+            Result.Definition definition = definitions.next();
+            SXSSFRow row = workbookSheet.createRow(i);
 
-            Result.DefinitionKey key = entry.getKey();
+            Result.DefinitionKey key = definition.getKey();
 
-            row.createCell(0).setCellValue(key.getWord());
-            row.createCell(1).setCellValue(key.getPartOfSpeech().name());
-            row.createCell(2).setCellValue(entry.getValue().toString());
+            setCellValue(row, 0, key.getWord(), columnLengths);
+            setCellValue(row, 1, key.getPartOfSpeech().name(), columnLengths);
+            setCellValue(row, 2, definition.getValues().toString(), columnLengths);
 
             i++;
         }
-        workbookSheet.autoSizeColumn(0);
-        workbookSheet.autoSizeColumn(1);
-        workbookSheet.autoSizeColumn(2);
+
+        for (int column = 0; column < COLUMNS_COUNT; column++) {
+            workbookSheet.setColumnWidth(column, getColumnWidth(columnLengths[column]));
+        }
+    }
+
+    private void setCellValue(SXSSFRow row, int column, String value, int[] columnLengths) {
+        row.createCell(column).setCellValue(value);
+        columnLengths[column] = Math.max(columnLengths[column], value.length());
+    }
+
+    private int getColumnWidth(int length) {
+        return Math.min((length + COLUMN_PADDING) * 256, MAX_COLUMN_WIDTH);
     }
 
-    private int createTitle(XSSFSheet workbookSheet, String languageFrom, String languageTo) {
-        XSSFRow row = workbookSheet.createRow(0);
+    private int createTitle(SXSSFSheet workbookSheet, String languageFrom, String languageTo, int[] columnLengths) {
+        SXSSFRow row = workbookSheet.createRow(0);
 
-        row.createCell(0).setCellValue(languageFrom);
-        row.createCell(1).setCellValue("Часть речи");
-        row.createCell(2).setCellValue(languageTo);
+        setCellValue(row, 0, languageFrom, columnLengths);
+        setCellValue(row, 1, "Часть речи", columnLengths);
+        setCellValue(row, 2, languageTo, columnLengths);
 
         return 2;
     }
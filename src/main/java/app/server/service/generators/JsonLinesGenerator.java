@@ -0,0 +1,47 @@
+package app.server.service.generators;
+
+import app.server.util.Result;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Словарь в формате JSON Lines: объект на каждую словарную статью, например
+ * {@code {"word":"...","partOfSpeech":"noun","meanings":[["...","..."],["..."]]}}
+ */
+public class JsonLinesGenerator implements DocGeneratorService {
+
+    private final JsonFactory jsonFactory = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    @Override
+    public void generate(String languageFrom, String languageTo, Iterator<Result.Definition> definitions,
+                         OutputStream stream) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(stream, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            while (definitions.hasNext()) {
+                Result.Definition definition = definitions.next();
+
+                generator.writeStartObject();
+                generator.writeStringField("word", definition.getKey().getWord());
+                generator.writeStringField("partOfSpeech", definition.getKey().getPartOfSpeech().name());
+                generator.writeArrayFieldStart("meanings");
+                for (List<String> translations: definition.getValues().getMeanings()) {
+                    generator.writeStartArray();
+                    for (String translation: translations) {
+                        generator.writeString(translation);
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
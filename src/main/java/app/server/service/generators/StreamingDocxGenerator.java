@@ -0,0 +1,186 @@
+package app.server.service.generators;
+
+import app.server.util.Result;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Потоковая генерация docx: части пакета OOXML пишутся напрямую в zip-поток, строки таблицы выводятся
+ * по мере чтения словарных статей, поэтому объём памяти не зависит от размера словаря.
+ * Разметка (титульная страница и таблица из двух колонок) совпадает с {@link DocxGenerator}
+ */
+public class StreamingDocxGenerator implements DocGeneratorService {
+
+    private static final String W = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final String CONTENT_TYPES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+            <Default Extension="xml" ContentType="application/xml"/>\
+            <Override PartName="/word/document.xml" \
+            ContentType="application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml"/>\
+            </Types>""";
+
+    private static final String RELATIONSHIPS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" \
+            Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" \
+            Target="word/document.xml"/>\
+            </Relationships>""";
+
+    private static final String[] BORDERS = {"top", "left", "bottom", "right", "insideH", "insideV"};
+
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    @Override
+    public void generate(String languageFrom, String languageTo, Iterator<Result.Definition> definitions,
+                         OutputStream stream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(stream);
+
+        zip.putNextEntry(new ZipEntry("[Content_Types].xml"));
+        zip.write(CONTENT_TYPES.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+
+        zip.putNextEntry(new ZipEntry("_rels/.rels"));
+        zip.write(RELATIONSHIPS.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+
+        zip.putNextEntry(new ZipEntry("word/document.xml"));
+        try {
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(zip, StandardCharsets.UTF_8.name());
+            writeDocument(writer, languageFrom, languageTo, definitions);
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        zip.closeEntry();
+
+        zip.finish();
+    }
+
+    private void writeDocument(XMLStreamWriter writer, String languageFrom, String languageTo,
+                               Iterator<Result.Definition> definitions) throws XMLStreamException {
+        writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        writer.setPrefix("w", W);
+        writer.writeStartElement(W, "document");
+        writer.writeNamespace("w", W);
+        writer.writeStartElement(W, "body");
+
+        writeTitle(writer, languageFrom, languageTo);
+        if (definitions.hasNext()) {
+            writeTableStart(writer);
+            while (definitions.hasNext()) {
+                writeRow(writer, definitions.next());
+            }
+            writer.writeEndElement();
+        }
+
+        writer.writeEmptyElement(W, "p");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+    }
+
+    private void writeTitle(XMLStreamWriter writer, String languageFrom, String languageTo)
+            throws XMLStreamException {
+        writer.writeStartElement(W, "p");
+        writer.writeStartElement(W, "pPr");
+        writeElement(writer, "spacing", "before", "4000");
+        writeElement(writer, "jc", "val", "center");
+        writer.writeEndElement();
+
+        writer.writeStartElement(W, "r");
+        writer.writeStartElement(W, "rPr");
+        writer.writeEmptyElement(W, "b");
+        writeElement(writer, "sz", "val", "36");
+        writer.writeEndElement();
+        writeText(writer, String.format("Переводной словарь (исходный язык - %s, переводящийся язык - %s)",
+                languageFrom, languageTo));
+        writer.writeEmptyElement(W, "cr");
+        writeElement(writer, "br", "type", "page");
+        writer.writeEndElement();
+
+        writer.writeEndElement();
+    }
+
+    private void writeTableStart(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(W, "tbl");
+        writer.writeStartElement(W, "tblPr");
+        writer.writeEmptyElement(W, "tblW");
+        writer.writeAttribute(W, "w", "0");
+        writer.writeAttribute(W, "type", "auto");
+        writer.writeStartElement(W, "tblBorders");
+        for (String border: BORDERS) {
+            writer.writeEmptyElement(W, border);
+            writer.writeAttribute(W, "val", "single");
+            writer.writeAttribute(W, "sz", "4");
+            writer.writeAttribute(W, "space", "0");
+            writer.writeAttribute(W, "color", "auto");
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+
+        writer.writeStartElement(W, "tblGrid");
+        writer.writeEmptyElement(W, "gridCol");
+        writer.writeEmptyElement(W, "gridCol");
+        writer.writeEndElement();
+    }
+
+    private void writeRow(XMLStreamWriter writer, Result.Definition definition) throws XMLStreamException {
+        Result.DefinitionKey key = definition.getKey();
+
+        writer.writeStartElement(W, "tr");
+        writer.writeStartElement(W, "tc");
+        writer.writeStartElement(W, "p");
+
+        writer.writeStartElement(W, "r");
+        writer.writeStartElement(W, "rPr");
+        writer.writeEmptyElement(W, "b");
+        writeElement(writer, "sz", "val", "24");
+        writer.writeEndElement();
+        writeText(writer, key.getWord());
+        writer.writeEndElement();
+
+        writer.writeStartElement(W, "r");
+        writer.writeStartElement(W, "rPr");
+        writer.writeEmptyElement(W, "i");
+        writer.writeEndElement();
+        writeText(writer, " (" + key.getPartOfSpeech().name() + ") ");
+        writer.writeEndElement();
+
+        writer.writeStartElement(W, "r");
+        writeText(writer, " - " + definition.getValues().toString());
+        writer.writeEndElement();
+
+        writer.writeEndElement();
+        writer.writeEndElement();
+
+        writer.writeStartElement(W, "tc");
+        writer.writeEmptyElement(W, "p");
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private void writeElement(XMLStreamWriter writer, String name, String attribute, String value)
+            throws XMLStreamException {
+        writer.writeEmptyElement(W, name);
+        writer.writeAttribute(W, attribute, value);
+    }
+
+    private void writeText(XMLStreamWriter writer, String text) throws XMLStreamException {
+        writer.writeStartElement(W, "t");
+        writer.writeAttribute("xml", "http://www.w3.org/XML/1998/namespace", "space", "preserve");
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+}
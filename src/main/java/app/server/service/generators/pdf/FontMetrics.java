@@ -0,0 +1,45 @@
+package app.server.service.generators.pdf;
+
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.TrueTypeFont;
+
+import java.io.IOException;
+
+/**
+ * Таблица ширин символов шрифта (Basic Multilingual Plane) в единицах пространства глифов PDF (1/1000 кегля).
+ * Строится один раз по таблицам cmap и hmtx; после построения не изменяется и может использоваться из разных потоков
+ */
+public class FontMetrics {
+
+    private static final int BMP_SIZE = Character.MAX_VALUE + 1;
+
+    private final float[] widths;
+
+    public FontMetrics(TrueTypeFont ttf) throws IOException {
+        CmapLookup cmap = ttf.getUnicodeCmapLookup();
+        float scale = 1_000f / ttf.getUnitsPerEm();
+        float notDefWidth = ttf.getAdvanceWidth(0) * scale;
+
+        this.widths = new float[BMP_SIZE];
+        for (int codePoint = 0; codePoint < BMP_SIZE; codePoint++) {
+            int glyphId = cmap.getGlyphId(codePoint);
+            widths[codePoint] = glyphId == 0 ? notDefWidth : ttf.getAdvanceWidth(glyphId) * scale;
+        }
+    }
+
+    public float getWidth(char c) {
+        return widths[c];
+    }
+
+    /**
+     * Ширина фрагмента строки [from, to) без создания подстроки
+     */
+    public float getWidth(CharSequence text, int from, int to) {
+        float width = 0;
+        for (int i = from; i < to; i++) {
+            width += widths[text.charAt(i)];
+        }
+
+        return width;
+    }
+}
@@ -0,0 +1,71 @@
+package app.server.service.generators.pdf;
+
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Общий для процесса набор шрифтов для генерации PDF. Файлы шрифтов читаются из classpath один раз (в том числе
+ * из упакованного jar), таблицы ширин {@link FontMetrics} строятся один раз и используются всеми потоками.
+ * {@link TrueTypeFont} не потокобезопасен и при встраивании подмножества глифов связан с документом, поэтому
+ * для каждого документа шрифт разбирается заново из байтов в памяти
+ */
+@Component
+public class FontRegistry {
+
+    private static final Map<FontType, String> RESOURCES = new EnumMap<>(FontType.class);
+
+    static {
+        RESOURCES.put(FontType.BOLD, "fonts/NotoSans-Bold.ttf");
+        RESOURCES.put(FontType.ITALIC, "fonts/NotoSans-Italic.ttf");
+        RESOURCES.put(FontType.REGULAR, "fonts/NotoSans-Regular.ttf");
+    }
+
+    private final Map<FontType, byte[]> fontBytes;
+    private final Map<FontType, FontMetrics> metrics;
+
+    public FontRegistry() {
+        this.fontBytes = new EnumMap<>(FontType.class);
+        ClassLoader classLoader = FontRegistry.class.getClassLoader();
+        for (Map.Entry<FontType, String> resource: RESOURCES.entrySet()) {
+            try (InputStream stream = classLoader.getResourceAsStream(resource.getValue())) {
+                if (stream == null) {
+                    throw new IllegalStateException("Font resource " + resource.getValue() + " not found");
+                }
+                fontBytes.put(resource.getKey(), stream.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        this.metrics = new EnumMap<>(FontType.class);
+        for (FontType type: FontType.values()) {
+            try (TrueTypeFont font = new TTFParser().parse(new ByteArrayInputStream(fontBytes.get(type)))) {
+                metrics.put(type, new FontMetrics(font));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public FontMetrics getMetrics(FontType type) {
+        return metrics.get(type);
+    }
+
+    /**
+     * Загружает шрифт в документ с встраиванием подмножества глифов. Шрифт разбирается из байтов заново
+     * и закрывается PDFBox после сохранения документа
+     */
+    public PDType0Font load(PDDocument document, FontType type) throws IOException {
+        return PDType0Font.load(document, new ByteArrayInputStream(fontBytes.get(type)), true);
+    }
+}
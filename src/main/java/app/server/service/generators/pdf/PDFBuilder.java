@@ -1,13 +1,12 @@
 package app.server.service.generators.pdf;
 
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.font.PDType0Font;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumMap;
@@ -15,8 +14,11 @@ import java.util.List;
 
 public class PDFBuilder {
 
+    private static final long MAX_MAIN_MEMORY_BYTES = 16L * 1024 * 1024;
+
     private final PDDocument pdDocument;
     private PDFont font;
+    private FontType fontType;
     private float fontSize;
     private float leading;
     private float margin;
@@ -27,6 +29,7 @@ public class PDFBuilder {
     private PDPageContentStream activeStream;
 
     private final EnumMap<FontType, PDFont> fonts;
+    private final EnumMap<FontType, FontMetrics> fontMetrics;
 
     public class PDFTextBuilder {
 
@@ -36,9 +39,11 @@ public class PDFBuilder {
 
         private float currentY;
         private byte currentColumn;
-        private float lineWidth;
         private float border;
 
+        private PDFLineLayout layout;
+        private FontType current;
+
         public PDFTextBuilder() throws IOException {
             init();
         }
@@ -58,12 +63,15 @@ public class PDFBuilder {
 
             currentY = startY;
             currentColumn = 1;
-            lineWidth = 0;
+
+            layout = new PDFLineLayout(fontMetrics, border);
+            layout.setFont(fontType);
         }
 
-        public PDFTextBuilder setFont(FontType type) throws IOException {
+        public PDFTextBuilder setFont(FontType type) {
             font = fonts.get(type);
-            getPDPageContentStream().setFont(fonts.get(type), fontSize);
+            fontType = type;
+            layout.setFont(type);
             return this;
         }
 
@@ -71,21 +79,20 @@ public class PDFBuilder {
             return addText(text, true);
         }
 
+        /**
+         * Разбивает текст на строки по ширине колонки ({@link PDFLineLayout}) и выводит завершённые строки
+         */
         public PDFTextBuilder addText(String text, boolean newLine) throws IOException {
-            PDPageContentStream contentStream = getPDPageContentStream();
-
-            String[] words = text.split(" ");
-            String showText;
-            for (String word: words) {
-                showText = word + " ";
-                float width = font.getStringWidth(showText);
-                lineWidth += width;
-                if (lineWidth >= border) {
-                    contentStream.newLineAtOffset(0, -leading);
-                    lineWidth = width;
-                    currentY -= leading;
-                }
+            layout.addText(text, newLine);
+            return addLines(layout.takeLines());
+        }
 
+        /**
+         * Выводит готовые строки в колонки, при заполнении колонки переходит к следующей колонке или странице
+         */
+        private PDFTextBuilder addLines(List<PDFLineLayout.Line> lines) throws IOException {
+            PDPageContentStream contentStream = getPDPageContentStream();
+            for (PDFLineLayout.Line line: lines) {
                 if(currentY <= margin) {
                     if (currentColumn < columnsCount) {
                         contentStream.newLineAtOffset(this.width + columnSpacing, startY - currentY);
@@ -98,18 +105,21 @@ public class PDFBuilder {
                         newPage();
                         contentStream = getPDPageContentStream();
                         contentStream.beginText();
-                        contentStream.setFont(font, fontSize);
                         contentStream.newLineAtOffset(startX, startY);
 
+                        current = null;
                         currentColumn = 1;
                     }
                     currentY = startY;
                 }
-                contentStream.showText(showText);
-            }
 
-            if (newLine) {
-                lineWidth = 0;
+                for (int run = 0; run < line.size(); run++) {
+                    if (line.getFont(run) != current) {
+                        current = line.getFont(run);
+                        contentStream.setFont(fonts.get(current), fontSize);
+                    }
+                    contentStream.showText(line.getText(run));
+                }
                 contentStream.newLineAtOffset(0, -leading);
                 currentY -= leading;
             }
@@ -118,13 +128,15 @@ public class PDFBuilder {
         }
 
         public void build() throws IOException {
+            addLines(layout.finish().takeLines());
             getPDPageContentStream().endText();
         }
     }
 
     public PDFBuilder() {
-        this.pdDocument = new PDDocument();
+        this.pdDocument = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES));
         this.fonts = new EnumMap<>(FontType.class);
+        this.fontMetrics = new EnumMap<>(FontType.class);
     }
 
     public PDFont getFont() {
@@ -136,9 +148,11 @@ public class PDFBuilder {
         return this;
     }
 
-    public PDFBuilder loadFont(File ttfFile, FontType fontType) throws IOException {
-        this.font = PDType0Font.load(pdDocument, ttfFile);
+    public PDFBuilder loadFont(FontRegistry registry, FontType fontType) throws IOException {
+        this.font = registry.load(pdDocument, fontType);
+        this.fontType = fontType;
         this.fonts.put(fontType, font);
+        this.fontMetrics.put(fontType, registry.getMetrics(fontType));
         return this;
     }
 
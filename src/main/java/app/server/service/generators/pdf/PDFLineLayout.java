@@ -0,0 +1,129 @@
+package app.server.service.generators.pdf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбиение текста на строки колонки без вывода в документ. Используется {@link PDFBuilder.PDFTextBuilder}
+ */
+public class PDFLineLayout {
+
+    /**
+     * Строка колонки - последовательность фрагментов текста, каждый со своим шрифтом
+     */
+    public static class Line {
+
+        private final List<FontType> fonts = new ArrayList<>();
+        private final List<String> texts = new ArrayList<>();
+
+        private void add(FontType font, String text) {
+            fonts.add(font);
+            texts.add(text);
+        }
+
+        public int size() {
+            return texts.size();
+        }
+
+        public FontType getFont(int index) {
+            return fonts.get(index);
+        }
+
+        public String getText(int index) {
+            return texts.get(index);
+        }
+    }
+
+    private final Map<FontType, FontMetrics> metrics;
+    private final float border;
+
+    private List<Line> lines = new ArrayList<>();
+    private final StringBuilder run = new StringBuilder();
+    private Line line = new Line();
+    private FontType font;
+    private float lineWidth;
+
+    PDFLineLayout(Map<FontType, FontMetrics> metrics, float border) {
+        this.metrics = metrics;
+        this.border = border;
+    }
+
+    public PDFLineLayout setFont(FontType type) {
+        flush();
+        font = type;
+        return this;
+    }
+
+    public PDFLineLayout addText(String text) {
+        return addText(text, true);
+    }
+
+    public PDFLineLayout addText(String text, boolean newLine) {
+        FontMetrics fontMetrics = metrics.get(font);
+
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) == ' ') {
+            length--;
+        }
+
+        float spaceWidth = fontMetrics.getWidth(' ');
+        int start = 0;
+        while (start < length || (start == 0 && text.isEmpty())) {
+            int end = text.indexOf(' ', start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+
+            float width = fontMetrics.getWidth(text, start, end) + spaceWidth;
+            lineWidth += width;
+            if (lineWidth >= border) {
+                nextLine();
+                lineWidth = width;
+            }
+
+            run.append(text, start, end).append(' ');
+            start = end + 1;
+        }
+
+        if (newLine) {
+            nextLine();
+            lineWidth = 0;
+        }
+
+        return this;
+    }
+
+    private void nextLine() {
+        flush();
+        lines.add(line);
+        line = new Line();
+    }
+
+    private void flush() {
+        if (run.length() > 0) {
+            line.add(font, run.toString());
+            run.setLength(0);
+        }
+    }
+
+    /**
+     * Завершает строку, начатую без переноса
+     */
+    public PDFLineLayout finish() {
+        if (run.length() > 0 || line.size() > 0) {
+            nextLine();
+        }
+        lineWidth = 0;
+        return this;
+    }
+
+    /**
+     * Возвращает завершённые с прошлого вызова строки; незавершённая (без переноса) строка в результат не входит
+     */
+    public List<Line> takeLines() {
+        List<Line> result = lines;
+        lines = new ArrayList<>();
+        return result;
+    }
+}
@@ -0,0 +1,43 @@
+package app.server.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Результат записи одного элемента пакета: идентификатор созданной сущности или код ошибки
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult<ID> {
+
+    /**
+     * Позиция элемента в запросе
+     */
+    private final int index;
+    private final ID id;
+    private final String error;
+
+    private BatchItemResult(int index, ID id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static <ID> BatchItemResult<ID> created(int index, ID id) {
+        return new BatchItemResult<>(index, id, null);
+    }
+
+    public static <ID> BatchItemResult<ID> failed(int index, String error) {
+        return new BatchItemResult<>(index, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ID getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,26 @@
+package app.server.util;
+
+public class CacheStatistics {
+
+    private final int size;
+    private final long hits;
+    private final long misses;
+
+    public CacheStatistics(int size, long hits, long misses) {
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,55 @@
+package app.server.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Токен продолжения для постраничной выборки по ключу (keyset pagination): значения столбцов сортировки
+ * и первичного ключа последней строки страницы, записанные в JSON и закодированные в Base64 (URL-safe)
+ */
+public final class Cursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Cursor() {
+    }
+
+    public static String encode(List<Object> values) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(values));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException если токен не является корректным курсором
+     */
+    public static List<JsonNode> decode(String token) {
+        JsonNode array;
+        try {
+            array = MAPPER.readTree(Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+
+        if (array == null || !array.isArray()) {
+            throw new IllegalArgumentException("Cursor is not an array");
+        }
+
+        List<JsonNode> values = new ArrayList<>(array.size());
+        array.forEach(values::add);
+        return values;
+    }
+
+    public static <V> V convert(JsonNode value, Class<V> type) {
+        return value.isNull() ? null : MAPPER.convertValue(value, type);
+    }
+}
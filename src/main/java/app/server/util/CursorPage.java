@@ -0,0 +1,25 @@
+package app.server.util;
+
+import java.util.List;
+
+/**
+ * Страница выборки по фильтру и токен продолжения для следующей страницы (null, если дальше строк нет)
+ */
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
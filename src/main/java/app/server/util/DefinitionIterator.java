@@ -0,0 +1,44 @@
+package app.server.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Собирает словарные статьи из строк результата запроса "на лету".
+ * Строки должны быть отсортированы так, чтобы строки одной статьи (слово, часть речи) шли подряд
+ */
+public class DefinitionIterator implements Iterator<Result.Definition> {
+
+    private final Iterator<Result> results;
+    private Result next;
+
+    public DefinitionIterator(Iterator<Result> results) {
+        this.results = results;
+        this.next = nextResult();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public Result.Definition next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+
+        Result.DefinitionKey key = next.getDefinitionKey();
+        Result.DefinitionValues values = new Result.DefinitionValues();
+        do {
+            values.add(next.getConceptId(), next.getToWord());
+            next = nextResult();
+        } while (next != null && key.matches(next));
+
+        return new Result.Definition(key, values);
+    }
+
+    private Result nextResult() {
+        return results.hasNext() ? results.next() : null;
+    }
+}
@@ -0,0 +1,108 @@
+package app.server.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+
+/**
+ * Задание на фоновую генерацию словаря. Состояние меняется потоком-исполнителем и читается потоками запросов
+ */
+public class ExportJob {
+
+    private final String id;
+    private final Integer fromId;
+    private final Integer toId;
+    private final FileFormat format;
+    private final String fileName;
+    private final long createdAt;
+
+    private volatile ExportJobStatus status;
+    private volatile long processed;
+    private volatile String error;
+    private volatile Long startedAt;
+    private volatile Long finishedAt;
+    private volatile Path file;
+
+    public ExportJob(String id, Integer fromId, Integer toId, FileFormat format, String fileName) {
+        this.id = id;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.format = format;
+        this.fileName = fileName;
+        this.createdAt = System.currentTimeMillis();
+        this.status = ExportJobStatus.QUEUED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Integer getFromId() {
+        return fromId;
+    }
+
+    public Integer getToId() {
+        return toId;
+    }
+
+    public FileFormat getFormat() {
+        return format;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public ExportJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ExportJobStatus status) {
+        this.status = status;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    @JsonIgnore
+    public Path getFile() {
+        return file;
+    }
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+}
@@ -0,0 +1,21 @@
+package app.server.util;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public enum ExportJobStatus {
+    @JsonProperty("queued")
+    QUEUED,
+
+    @JsonProperty("running")
+    RUNNING,
+
+    @JsonProperty("done")
+    DONE,
+
+    @JsonProperty("failed")
+    FAILED;
+
+    public boolean isFinished() {
+        return this == DONE || this == FAILED;
+    }
+}
@@ -0,0 +1,109 @@
+package app.server.util;
+
+/**
+ * Снимок показателей пула фоновой генерации словарей
+ */
+public class ExportMetrics {
+
+    private int poolSize;
+    private int activeCount;
+    private int queueDepth;
+    private int queueCapacity;
+
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long rejected;
+
+    private long averageWaitMillis;
+    private long averageRenderMillis;
+    private long maxRenderMillis;
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public void setActiveCount(int activeCount) {
+        this.activeCount = activeCount;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public void setAverageWaitMillis(long averageWaitMillis) {
+        this.averageWaitMillis = averageWaitMillis;
+    }
+
+    public long getAverageRenderMillis() {
+        return averageRenderMillis;
+    }
+
+    public void setAverageRenderMillis(long averageRenderMillis) {
+        this.averageRenderMillis = averageRenderMillis;
+    }
+
+    public long getMaxRenderMillis() {
+        return maxRenderMillis;
+    }
+
+    public void setMaxRenderMillis(long maxRenderMillis) {
+        this.maxRenderMillis = maxRenderMillis;
+    }
+}
@@ -12,5 +12,14 @@ public enum FileFormat implements Serializable {
     docx,
 
     @JsonProperty("xlsx")
-    xlsx
+    xlsx,
+
+    @JsonProperty("csv")
+    csv,
+
+    @JsonProperty("tsv")
+    tsv,
+
+    @JsonProperty("jsonl")
+    jsonl
 }
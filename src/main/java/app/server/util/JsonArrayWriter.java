@@ -0,0 +1,53 @@
+package app.server.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Пишет JSON-массив в поток по одному элементу, не накапливая элементы в памяти. Массив закрывается только
+ * вызовом {@link #finish()}: если выборка прервана ошибкой, клиент получает недописанный (некорректный) JSON,
+ * а не усечённый, но корректный массив
+ */
+public class JsonArrayWriter implements Closeable {
+
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+    private boolean finished;
+
+    /**
+     * @param objectMapper тот же ObjectMapper, которым MVC пишет тела ответов
+     */
+    public JsonArrayWriter(ObjectMapper objectMapper, OutputStream stream) throws IOException {
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = writer.getFactory().createGenerator(stream, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.writeStartArray();
+    }
+
+    public void write(Object value) throws IOException {
+        writer.writeValue(generator, value);
+    }
+
+    public void finish() throws IOException {
+        generator.writeEndArray();
+        finished = true;
+    }
+
+    /**
+     * Без {@link #finish()} буфер генератора не сбрасывается в поток: пока ответ не отправлен, обработчик ошибок
+     * ещё может вернуть статус ошибки
+     */
+    @Override
+    public void close() throws IOException {
+        if (finished) {
+            generator.close();
+        }
+    }
+}
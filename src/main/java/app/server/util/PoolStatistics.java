@@ -0,0 +1,70 @@
+package app.server.util;
+
+import java.util.Map;
+
+public class PoolStatistics {
+
+    private final int active;
+    private final int idle;
+    private final int pending;
+    private final int total;
+    private final int max;
+
+    /**
+     * Количество получений соединения по интервалам времени ожидания: ключ - верхняя граница интервала
+     * в миллисекундах
+     */
+    private final Map<String, Long> waitHistogram;
+    private final double meanWaitMillis;
+    private final double maxWaitMillis;
+    private final long timeouts;
+
+    public PoolStatistics(int active, int idle, int pending, int total, int max, Map<String, Long> waitHistogram,
+                          double meanWaitMillis, double maxWaitMillis, long timeouts) {
+        this.active = active;
+        this.idle = idle;
+        this.pending = pending;
+        this.total = total;
+        this.max = max;
+        this.waitHistogram = waitHistogram;
+        this.meanWaitMillis = meanWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.timeouts = timeouts;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public Map<String, Long> getWaitHistogram() {
+        return waitHistogram;
+    }
+
+    public double getMeanWaitMillis() {
+        return meanWaitMillis;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+}
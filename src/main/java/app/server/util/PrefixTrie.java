@@ -0,0 +1,199 @@
+package app.server.util;
+
+import java.util.*;
+
+/**
+ * Сжатое префиксное дерево (radix tree): рёбра помечены строками, узел с единственным потомком и без значений
+ * сливается с потомком. Ключи - слова в нижнем регистре, значения - исходные написания с количеством повторов.
+ * Класс не потокобезопасен
+ */
+public class PrefixTrie {
+
+    private static class Node {
+
+        private String label;
+        private TreeMap<Character, Node> children;
+        private TreeMap<String, Integer> values;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node getChild(char c) {
+            return children == null ? null : children.get(c);
+        }
+
+        private void putChild(Node child) {
+            if (children == null) {
+                children = new TreeMap<>();
+            }
+            children.put(child.label.charAt(0), child);
+        }
+
+        private void removeChild(Node child) {
+            children.remove(child.label.charAt(0));
+            if (children.isEmpty()) {
+                children = null;
+            }
+        }
+
+        private void addValue(String value) {
+            if (values == null) {
+                values = new TreeMap<>();
+            }
+            values.merge(value, 1, Integer::sum);
+        }
+
+        private boolean removeValue(String value) {
+            if (values == null || !values.containsKey(value)) {
+                return false;
+            }
+
+            if (values.merge(value, -1, Integer::sum) == 0) {
+                values.remove(value);
+                if (values.isEmpty()) {
+                    values = null;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Node root = new Node("");
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void add(String value) {
+        String key = toKey(value);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.getChild(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.putChild(child);
+                node = child;
+                break;
+            }
+
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.putChild(child);
+                node.putChild(split);
+                child = split;
+            }
+
+            node = child;
+            i += common;
+        }
+
+        node.addValue(value);
+        size++;
+    }
+
+    public boolean remove(String value) {
+        String key = toKey(value);
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.getChild(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return false;
+            }
+
+            path.push(node);
+            node = child;
+            i += child.label.length();
+        }
+
+        if (!node.removeValue(value)) {
+            return false;
+        }
+        size--;
+
+        // удаление опустевших узлов и слияние узлов с единственным потомком
+        while (!path.isEmpty() && node.values == null) {
+            Node parent = path.pop();
+            if (node.children == null) {
+                parent.removeChild(node);
+            } else if (node.children.size() == 1) {
+                Node child = node.children.firstEntry().getValue();
+                parent.removeChild(node);
+                child.label = node.label + child.label;
+                parent.putChild(child);
+                break;
+            } else {
+                break;
+            }
+            node = parent;
+        }
+
+        return true;
+    }
+
+    /**
+     * Не более limit исходных написаний слов с заданным префиксом (без учёта регистра) в лексикографическом порядке
+     */
+    public List<String> find(String prefix, int limit) {
+        String key = toKey(prefix);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.getChild(key.charAt(i));
+            if (child == null) {
+                return Collections.emptyList();
+            }
+
+            int length = Math.min(child.label.length(), key.length() - i);
+            if (!child.label.regionMatches(0, key, i, length)) {
+                return Collections.emptyList();
+            }
+
+            node = child;
+            i += length;
+        }
+
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        collect(node, limit, result);
+        return result;
+    }
+
+    private void collect(Node node, int limit, List<String> result) {
+        if (node.values != null) {
+            for (String value: node.values.keySet()) {
+                if (result.size() >= limit) {
+                    return;
+                }
+                result.add(value);
+            }
+        }
+
+        if (node.children != null) {
+            for (Node child: node.children.values()) {
+                if (result.size() >= limit) {
+                    return;
+                }
+                collect(child, limit, result);
+            }
+        }
+    }
+
+    private int commonPrefix(String label, String key, int from) {
+        int length = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private String toKey(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -20,6 +20,13 @@ public class QueryData implements Serializable {
      */
     private Integer offset;
 
+    /**
+     * Токен продолжения, полученный в заголовке X-Next-Cursor предыдущей страницы; при его наличии выборка
+     * начинается со строки, следующей за последней строкой предыдущей страницы, а offset не учитывается
+     * (опционально)
+     */
+    private String cursor;
+
     /**
      * Для возможности использования совместно с ссылочным ключом (Foreign Key)
      * сущность, на которую ссылается ссылочный ключ; верно только для сущностей самого верхнего уровня
@@ -27,6 +34,12 @@ public class QueryData implements Serializable {
      */
     private Boolean expand;
 
+    /**
+     * Список полей ресурса, которые нужно вернуть; остальные поля остаются пустыми (null), связанные сущности
+     * не загружаются, expand и курсор для следующей страницы не поддерживаются (опционально)
+     */
+    private List<String> fields;
+
     public List<ColumnData> getColumns() {
         return columns;
     }
@@ -51,6 +64,14 @@ public class QueryData implements Serializable {
         this.offset = offset;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     public Boolean getExpand() {
         return expand;
     }
@@ -58,4 +79,12 @@ public class QueryData implements Serializable {
     public void setExpand(Boolean expand) {
         this.expand = expand;
     }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
 }
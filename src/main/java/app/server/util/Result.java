@@ -2,10 +2,7 @@ package app.server.util;
 
 import app.server.domain.custom.PartOfSpeech;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 public class Result {
 
@@ -44,6 +41,29 @@ public class Result {
         public int hashCode() {
             return Objects.hash(word, partOfSpeech);
         }
+
+        public boolean matches(Result result) {
+            return Objects.equals(word, result.fromWord) && partOfSpeech == result.partOfSpeech;
+        }
+    }
+
+    public static class Definition {
+
+        private final DefinitionKey key;
+        private final DefinitionValues values;
+
+        public Definition(DefinitionKey key, DefinitionValues values) {
+            this.key = key;
+            this.values = values;
+        }
+
+        public DefinitionKey getKey() {
+            return key;
+        }
+
+        public DefinitionValues getValues() {
+            return values;
+        }
     }
 
     public static class DefinitionValues {
@@ -59,6 +79,17 @@ public class Result {
             values.putIfAbsent(conceptId, list);
         }
 
+        public void add(Long conceptId, List<String> words) {
+            values.computeIfAbsent(conceptId, key -> new ArrayList<>()).addAll(words);
+        }
+
+        /**
+         * Переводы, сгруппированные по значениям (понятиям), в порядке добавления
+         */
+        public Collection<List<String>> getMeanings() {
+            return Collections.unmodifiableCollection(values.values());
+        }
+
         public DefinitionValues add(DefinitionValues values) {
             values.values.forEach((key, value) -> {
                 if (this.values.containsKey(key)) {
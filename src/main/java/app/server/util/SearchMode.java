@@ -0,0 +1,19 @@
+package app.server.util;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+
+public enum SearchMode implements Serializable {
+    /**
+     * Вхождение строки без учёта регистра
+     */
+    @JsonProperty("substring")
+    substring,
+
+    /**
+     * Триграммное сходство (pg_trgm), по убыванию сходства
+     */
+    @JsonProperty("similar")
+    similar
+}
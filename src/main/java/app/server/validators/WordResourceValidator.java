@@ -1,13 +1,11 @@
 package app.server.validators;
 
-import app.server.domain.Language;
 import app.server.resource.WordResource;
 import app.server.service.LanguageJPAService;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
@@ -45,12 +43,12 @@ public class WordResourceValidator implements ResourceValidator<WordResource> {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorCode.FK_NULL.name());
         }
 
-        Optional<Language> optionalLanguage = service.get(languageId);
-        if (optionalLanguage.isEmpty()) {
+        Optional<Set<Character>> alphabet = service.getAlphabet(languageId);
+        if (alphabet.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorCode.FK_INSERT_UPDATE_CONSTRAINT.name());
         }
 
-        Set<Character> symbols = getCharacters(optionalLanguage.get());
+        Set<Character> symbols = alphabet.get();
 
         for (int i = 0; i < value.length(); i++) {
             char symbol = value.charAt(i);
@@ -64,15 +62,6 @@ public class WordResourceValidator implements ResourceValidator<WordResource> {
         }
     }
 
-    private Set<Character> getCharacters(Language language) {
-        String alphabet = language.getAlphabet();
-        Set<Character> symbols = new HashSet<>();
-        for (int i = 0; i < alphabet.length(); i++) {
-            symbols.add(alphabet.charAt(i));
-        }
-        return symbols;
-    }
-
     private void validateOnNull(WordResource resource) {
         if (resource == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorCode.ENTITY_NULL.name());
@@ -0,0 +1,6 @@
+-- Индексы для постраничной выборки по фильтру с курсором (POST /{entity}/filter) при сортировке по значению:
+-- условие (value, id) > (:value, :id) и ORDER BY value, id выполняются одним диапазоном индекса, поэтому
+-- глубокие страницы не дороже первой. Выполняется вручную
+CREATE INDEX IF NOT EXISTS word_value_id_idx ON word (value, id);
+CREATE INDEX IF NOT EXISTS concept_name_id_idx ON concept (name, id);
+CREATE INDEX IF NOT EXISTS language_name_id_idx ON language (name, id);
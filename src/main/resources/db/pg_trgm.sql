@@ -0,0 +1,8 @@
+-- Триграммные индексы для поиска по подстроке и по сходству (GET /word/search, GET /concept/search).
+-- Выполняется вручную пользователем с правом создавать расширения; без расширения поиск работает через LIKE
+-- без индекса, а поиск по сходству сводится к поиску по подстроке
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS word_value_trgm_idx ON word USING gin (value gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS word_language_id_idx ON word (language_id);
+CREATE INDEX IF NOT EXISTS concept_name_trgm_idx ON concept USING gin (name gin_trgm_ops);
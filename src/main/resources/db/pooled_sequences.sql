@@ -0,0 +1,8 @@
+-- Идентификаторы выделяются блоками по 50 (allocationSize в сущностях, оптимизатор pooled-lo): значение
+-- последовательности - начало блока, поэтому шаг последовательности должен совпадать с allocationSize.
+-- Выполняется один раз перед запуском новой версии сервера; уже выданные идентификаторы не пересекаются с новыми,
+-- так как следующий блок начинается после текущего значения последовательности
+ALTER SEQUENCE language_seq INCREMENT BY 50;
+ALTER SEQUENCE word_seq INCREMENT BY 50;
+ALTER SEQUENCE concept_seq INCREMENT BY 50;
+ALTER SEQUENCE word_concept_seq INCREMENT BY 50;
@@ -0,0 +1,79 @@
+package app.server.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замер среднего времени выполнения и пикового размера кучи для бенчмарков.
+ * Бенчмарки не входят в обычный прогон тестов и запускаются явно, например:
+ * {@code mvn test -Dtest=ExcelGenerationBenchmark}
+ */
+public class Measurement {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private final String name;
+    private final long averageNanos;
+    private final long peakHeapBytes;
+
+    private Measurement(String name, long averageNanos, long peakHeapBytes) {
+        this.name = name;
+        this.averageNanos = averageNanos;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    public static Measurement measure(String name, int warmups, int iterations, Action action) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            action.run();
+        }
+
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        System.gc();
+        for (MemoryPoolMXBean pool: pools) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        long averageNanos = (System.nanoTime() - start) / iterations;
+
+        long peakHeapBytes = 0;
+        for (MemoryPoolMXBean pool: pools) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        Measurement measurement = new Measurement(name, averageNanos, peakHeapBytes);
+        System.out.println(measurement);
+        return measurement;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAverageNanos() {
+        return averageNanos;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-40s %10d ms/op %10d MB peak heap", name,
+                TimeUnit.NANOSECONDS.toMillis(averageNanos), peakHeapBytes / (1024 * 1024));
+    }
+}
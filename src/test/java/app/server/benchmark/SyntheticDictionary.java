@@ -0,0 +1,61 @@
+package app.server.benchmark;
+
+import app.server.domain.custom.PartOfSpeech;
+import app.server.util.Result;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Детерминированный синтетический словарь для бенчмарков генераторов
+ */
+public class SyntheticDictionary implements Iterator<Result.Definition> {
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+    private static final PartOfSpeech[] PARTS_OF_SPEECH = PartOfSpeech.values();
+
+    private final int size;
+    private final Random random;
+    private int index;
+
+    public SyntheticDictionary(int size) {
+        this.size = size;
+        this.random = new Random(size);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < size;
+    }
+
+    @Override
+    public Result.Definition next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Result.DefinitionKey key = new Result.DefinitionKey(String.format("%s%07d", word(), index),
+                PARTS_OF_SPEECH[index % PARTS_OF_SPEECH.length]);
+        Result.DefinitionValues values = new Result.DefinitionValues();
+        int concepts = 1 + random.nextInt(3);
+        for (long concept = 0; concept < concepts; concept++) {
+            int translations = 1 + random.nextInt(4);
+            for (int i = 0; i < translations; i++) {
+                values.add(concept, word());
+            }
+        }
+
+        index++;
+        return new Result.Definition(key, values);
+    }
+
+    private String word() {
+        int length = 3 + random.nextInt(10);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package app.server.config;
+
+import app.server.resource.WordResource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Основная БД подключается второй раз как реплика: её пул открывает соединения только для чтения, поэтому запись,
+ * ошибочно направленная на реплику, завершается ошибкой. Для двух локальных экземпляров достаточно заменить
+ * db.replica.urls на адрес второго
+ */
+@ContextConfiguration(classes = {SpringWebConfig.class, WebConfiguration.class})
+@SpringBootTest(properties = "db.replica.urls=${db.url}")
+@AutoConfigureMockMvc
+public class ReplicaRoutingTest {
+
+    private static final String APPLICATION_NAME = "SELECT current_setting('application_name')";
+    private static final String PRIMARY = "semantic-network-pool";
+    private static final String REPLICA = "semantic-network-replica-0";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void readOnlyTransactionUsesReplica() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        assertPool(REPLICA, template.execute(status -> getApplicationName()));
+    }
+
+    @Test
+    public void writeTransactionUsesPrimary() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        assertPool(PRIMARY, template.execute(status -> getApplicationName()));
+    }
+
+    @Test
+    public void readOnlyScopeUsesReplica() {
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.readOnly()) {
+            assertPool(REPLICA, getApplicationName());
+        }
+        assertPool(PRIMARY, getApplicationName());
+    }
+
+    @Test
+    public void primaryScopeOverridesReadOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        try (ReplicaRoutingDataSource.RoutingScope ignored = ReplicaRoutingDataSource.primary()) {
+            assertPool(PRIMARY, template.execute(status -> getApplicationName()));
+        }
+    }
+
+    /**
+     * Проверка слова читает язык в транзакции только для чтения до записи в том же запросе
+     */
+    @Test
+    public void postAndDeleteAfterRead() throws Exception {
+        WordResource wordResource = new WordResource();
+        wordResource.setValue("test replica");
+        wordResource.setLanguageId(1);
+
+        MvcResult result = this.mockMvc.perform(MockMvcRequestBuilders.post("/word")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writerFor(WordResource.class).writeValueAsString(wordResource)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.value", equalTo(wordResource.getValue())))
+                .andReturn();
+        WordResource posted = new ObjectMapper().readerFor(WordResource.class)
+                .readValue(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.delete("/word").queryParam("id", posted.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(posted.getId()));
+    }
+
+    private String getApplicationName() {
+        return jdbcTemplate.queryForObject(APPLICATION_NAME, String.class);
+    }
+
+    private void assertPool(String expected, String actual) {
+        Assert.isTrue(expected.equals(actual), String.format("Expected pool %s, but got %s!", expected, actual));
+    }
+}
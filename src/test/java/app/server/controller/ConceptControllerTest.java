@@ -2,6 +2,7 @@ package app.server.controller;
 
 import app.server.config.SpringWebConfig;
 import app.server.config.WebConfiguration;
+import app.server.repository.CriteriaQueryCache;
 import app.server.resource.ConceptResource;
 import app.server.util.ColumnData;
 import app.server.util.QueryData;
@@ -36,6 +37,9 @@ public class ConceptControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private CriteriaQueryCache criteriaQueryCache;
+
     @Test
     public void getAll() throws Exception {
         this.mockMvc.perform(MockMvcRequestBuilders.get("/concept"))
@@ -291,6 +295,30 @@ public class ConceptControllerTest {
 
     }
 
+    @Test
+    public void filterSameShapeHitsQueryCache() throws Exception {
+        QueryData queryData = new QueryData();
+        queryData.setLimit(5);
+        ColumnData columnData = new ColumnData();
+        columnData.setColumn("name");
+        columnData.setRegex("%a%");
+        columnData.setOrder(SortOrder.DESCENDING);
+        queryData.setColumns(List.of(columnData));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/concept/filter").contentType(MediaType.APPLICATION_JSON)
+            .content(getQueryDataJson(queryData)))
+                .andExpect(status().isOk());
+        long hits = criteriaQueryCache.getStatistics().getHits();
+
+        columnData.setRegex("%e%");
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/concept/filter").contentType(MediaType.APPLICATION_JSON)
+            .content(getQueryDataJson(queryData)))
+                .andExpect(status().isOk());
+
+        Assert.isTrue(criteriaQueryCache.getStatistics().getHits() > hits,
+                "The second request of the same shape didn't hit the query cache!");
+    }
+
     @Test
     public void getById() throws Exception {
         this.mockMvc.perform(MockMvcRequestBuilders.get("/concept/1"))
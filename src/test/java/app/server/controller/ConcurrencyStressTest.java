@@ -0,0 +1,156 @@
+package app.server.controller;
+
+import app.server.config.SpringWebConfig;
+import app.server.config.WebConfiguration;
+import app.server.resource.WordResource;
+import app.server.util.ColumnData;
+import app.server.util.QueryData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Параллельные запросы CRUD и выборки по фильтру из многих потоков: каждый поток работает со своими словами,
+ * поэтому любое чужое или потерянное значение в ответе означает общий между запросами контекст персистентности
+ */
+@ContextConfiguration(classes = {SpringWebConfig.class, WebConfiguration.class})
+@SpringBootTest(properties = "hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class ConcurrencyStressTest {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int ITERATIONS = 25;
+    private static final int LANGUAGE_ID = 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void crudAndFilter() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        runScenarios("stress", THREADS);
+
+        Assert.isTrue(statistics.getSessionOpenCount() == statistics.getSessionCloseCount(),
+                "Some entity managers were not closed after their requests!");
+    }
+
+    private void runScenarios(String name, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            String prefix = name + " " + toLetters(thread);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                    runScenario(prefix + " " + toLetters(iteration));
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<?> future: futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runScenario(String value) throws Exception {
+        WordResource posted = post(value);
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter").contentType(MediaType.APPLICATION_JSON)
+                .content(getFilterJson(value)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", iterableWithSize(1)))
+                .andExpect(jsonPath("$[0].id").value(posted.getId()));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/word/" + posted.getId()).queryParam("expand", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.value", equalTo(value)))
+                .andExpect(jsonPath("$.language.id").value(LANGUAGE_ID));
+
+        posted.setValue(value + " updated");
+        this.mockMvc.perform(MockMvcRequestBuilders.put("/word").contentType(MediaType.APPLICATION_JSON)
+                .content(getJson(posted)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.value", equalTo(posted.getValue())));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.delete("/word").queryParam("id", posted.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(posted.getId()));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/word/" + posted.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    private WordResource post(String value) throws Exception {
+        WordResource resource = new WordResource();
+        resource.setValue(value);
+        resource.setLanguageId(LANGUAGE_ID);
+
+        MvcResult result = this.mockMvc.perform(MockMvcRequestBuilders.post("/word")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(getJson(resource)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.value", equalTo(value)))
+                .andReturn();
+
+        return new ObjectMapper().readerFor(WordResource.class)
+                .readValue(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private String getFilterJson(String value) throws Exception {
+        ColumnData columnData = new ColumnData();
+        columnData.setColumn("value");
+        columnData.setRegex(value);
+
+        QueryData queryData = new QueryData();
+        queryData.setColumns(List.of(columnData));
+        return new ObjectMapper().writerFor(QueryData.class).writeValueAsString(queryData);
+    }
+
+    private String getJson(WordResource resource) throws Exception {
+        return new ObjectMapper().writerFor(WordResource.class).writeValueAsString(resource);
+    }
+
+    /**
+     * Число буквами латинского алфавита: значения слов проходят проверку на алфавит языка
+     */
+    private String toLetters(int number) {
+        String digits = Integer.toString(number, 26);
+        StringBuilder letters = new StringBuilder(digits.length());
+        for (int i = 0; i < digits.length(); i++) {
+            letters.append((char) ('a' + Character.digit(digits.charAt(i), 26)));
+        }
+        return letters.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package app.server.controller;
+
+import app.server.config.SpringWebConfig;
+import app.server.config.WebConfiguration;
+import app.server.util.QueryData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Количество SQL-выражений на запрос списка не должно зависеть от количества строк: связанные сущности либо
+ * выбираются тем же запросом (expand), либо не загружаются вовсе (ленивые связи)
+ */
+@ContextConfiguration(classes = {SpringWebConfig.class, WebConfiguration.class})
+@SpringBootTest(properties = "hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class ExpandStatementCountTest {
+
+    private static final int LIMIT = 100;
+    private static final long MAX_STATEMENTS = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void filterWordExpand() throws Exception {
+        assertBounded(getFilterRequest("/word/filter", true));
+    }
+
+    @Test
+    public void getAllWordExpand() throws Exception {
+        assertBounded(MockMvcRequestBuilders.get("/word").queryParam("expand", "true"));
+    }
+
+    @Test
+    public void filterConceptExpand() throws Exception {
+        assertBounded(getFilterRequest("/concept/filter", true));
+    }
+
+    @Test
+    public void filterWordConceptExpand() throws Exception {
+        assertBounded(getFilterRequest("/word_concept/filter", true));
+    }
+
+    @Test
+    public void filterWordConcept() throws Exception {
+        assertBounded(getFilterRequest("/word_concept/filter", false));
+    }
+
+    @Test
+    public void getAllWordConceptExpand() throws Exception {
+        assertBounded(MockMvcRequestBuilders.get("/word_concept").queryParam("expand", "true"));
+    }
+
+    private MockHttpServletRequestBuilder getFilterRequest(String url, boolean expand) throws Exception {
+        QueryData queryData = new QueryData();
+        queryData.setLimit(LIMIT);
+        queryData.setExpand(expand);
+
+        return MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writerFor(QueryData.class).writeValueAsString(queryData));
+    }
+
+    private void assertBounded(MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        this.mockMvc.perform(request).andExpect(status().isOk());
+
+        long statements = statistics.getPrepareStatementCount();
+        Assert.isTrue(statements <= MAX_STATEMENTS,
+                String.format("Expected at most %d statements, but %d were executed!", MAX_STATEMENTS, statements));
+    }
+}
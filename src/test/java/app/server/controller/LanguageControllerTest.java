@@ -287,6 +287,23 @@ public class LanguageControllerTest {
         deleteResource(putLanguage);
     }
 
+    @Test
+    public void postGetPutGetAndDelete() throws Exception {
+        LanguageResource postLanguage = getLanguage(getPostedLanguage());
+        getById(postLanguage);
+
+        LanguageResource putLanguage = getPuttedLanguage(postLanguage);
+        getById(putLanguage);
+        deleteResource(putLanguage);
+    }
+
+    private void getById(LanguageResource resource) throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/language/" + resource.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", equalTo(resource.getName())))
+                .andExpect(jsonPath("$.alphabet", equalTo(resource.getAlphabet())));
+    }
+
     private LanguageResource getPuttedLanguage(LanguageResource languageResource) throws Exception {
         languageResource.setName("test_numeral");
         languageResource.setAlphabet("0123456789");
@@ -8,6 +8,7 @@ import app.server.util.ColumnData;
 import app.server.util.QueryData;
 import app.server.util.SortOrder;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -244,6 +245,110 @@ public class WordControllerTest {
         }
     }
 
+    @Test
+    public void filterLimitAndCursor() throws Exception {
+        QueryData queryData = new QueryData();
+        int limit = 5;
+        queryData.setLimit(limit);
+        ColumnData columnData = new ColumnData();
+        columnData.setColumn("value");
+        columnData.setOrder(SortOrder.ASCENDING);
+        queryData.setColumns(List.of(columnData));
+
+        MvcResult firstPage = this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(getQueryDataJson(queryData)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", iterableWithSize(limit)))
+                .andExpect(header().exists(ExtendedController.NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        queryData.setCursor(firstPage.getResponse().getHeader(ExtendedController.NEXT_CURSOR_HEADER));
+        MvcResult cursorPage = this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(getQueryDataJson(queryData)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        queryData.setCursor(null);
+        queryData.setOffset(limit);
+        MvcResult offsetPage = this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(getQueryDataJson(queryData)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        WordResource[] byCursor = new ObjectMapper().readerFor(WordResource[].class)
+                .readValue(cursorPage.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        WordResource[] byOffset = new ObjectMapper().readerFor(WordResource[].class)
+                .readValue(offsetPage.getResponse().getContentAsString(StandardCharsets.UTF_8));
+
+        Assert.isTrue(byCursor.length == byOffset.length, "Pages by cursor and by offset have different sizes!");
+        for (int i = 0; i < byCursor.length; i++) {
+            Assert.isTrue(byCursor[i].getId().equals(byOffset[i].getId()),
+                    "Pages by cursor and by offset are different!");
+        }
+    }
+
+    @Test
+    public void filterCursorByAssociation() throws Exception {
+        QueryData queryData = new QueryData();
+        int limit = 5;
+        queryData.setLimit(limit);
+        ColumnData columnData = new ColumnData();
+        columnData.setColumn("language.name");
+        columnData.setOrder(SortOrder.ASCENDING);
+        queryData.setColumns(List.of(columnData));
+
+        MvcResult firstPage = this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(getQueryDataJson(queryData)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", iterableWithSize(limit)))
+                .andExpect(jsonPath("$[*].language", everyItem(nullValue())))
+                .andExpect(header().exists(ExtendedController.NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        queryData.setCursor(firstPage.getResponse().getHeader(ExtendedController.NEXT_CURSOR_HEADER));
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(getQueryDataJson(queryData)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", iterableWithSize(limit)));
+    }
+
+    @Test
+    public void filterIncorrectCursor() throws Exception {
+        QueryData queryData = new QueryData();
+        queryData.setLimit(5);
+        queryData.setCursor("incorrect");
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter").contentType(MediaType.APPLICATION_JSON)
+                .content(getQueryDataJson(queryData)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void filterFields() throws Exception {
+        QueryData queryData = new QueryData();
+        int limit = 10;
+        queryData.setLimit(limit);
+        queryData.setFields(List.of("id", "value"));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter").contentType(MediaType.APPLICATION_JSON)
+                .content(getQueryDataJson(queryData)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", iterableWithSize(lessThanOrEqualTo(limit))))
+                .andExpect(jsonPath("$[*].id", everyItem(notNullValue())))
+                .andExpect(jsonPath("$[*].value", everyItem(notNullValue())))
+                .andExpect(jsonPath("$[*].languageId", everyItem(nullValue())));
+
+        queryData.setFields(List.of("id", "unknown"));
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter").contentType(MediaType.APPLICATION_JSON)
+                .content(getQueryDataJson(queryData)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void filterLimitAndRegexValue() throws Exception {
         QueryData queryData = new QueryData();
@@ -270,6 +375,35 @@ public class WordControllerTest {
                 .andExpect(jsonPath("$[*].language", everyItem(nullValue())));
     }
 
+    @Test
+    public void searchSubstring() throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/word/search")
+                .queryParam("query", "en")
+                .queryParam("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$", iterableWithSize(lessThanOrEqualTo(10))))
+                .andExpect(jsonPath("$[*].value", everyItem(matchesPattern("(?i).*en.*"))));
+    }
+
+    @Test
+    public void searchExpand() throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/word/search")
+                .queryParam("query", "en")
+                .queryParam("limit", "10")
+                .queryParam("expand", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].language", everyItem(
+                        allOf(hasKey("id"), hasKey("name"), hasKey("alphabet"))
+                )));
+    }
+
+    @Test
+    public void searchBlankQuery() throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/word/search").queryParam("query", " "))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getById() throws Exception {
         this.mockMvc.perform(MockMvcRequestBuilders.get("/word/1"))
@@ -310,6 +444,26 @@ public class WordControllerTest {
         deleteResource(resource);
     }
 
+    @Test
+    public void postSuggestAndDelete() throws Exception {
+        MvcResult result = getPostedWord();
+        WordResource resource = getWord(result);
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/word/suggest")
+                .queryParam("languageId", resource.getLanguageId().toString())
+                .queryParam("prefix", "TEST val"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasItem(resource.getValue())));
+
+        deleteResource(resource);
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/word/suggest")
+                .queryParam("languageId", resource.getLanguageId().toString())
+                .queryParam("prefix", "test val"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", not(hasItem(resource.getValue()))));
+    }
+
     private MvcResult getPostedWord() throws Exception {
         WordResource wordResource = new WordResource();
         wordResource.setValue("test value");
@@ -332,6 +486,46 @@ public class WordControllerTest {
         return new ObjectMapper().readerFor(WordResource.class).readValue(content);
     }
 
+    @Test
+    public void postBatchAndDelete() throws Exception {
+        WordResource first = new WordResource();
+        first.setValue("test batch");
+        first.setLanguageId(1);
+        WordResource withoutLanguage = new WordResource();
+        withoutLanguage.setValue("test batch");
+        WordResource second = new WordResource();
+        second.setValue("test batch");
+        second.setLanguageId(1);
+
+        String json = new ObjectMapper().writerFor(WordResource[].class)
+                .writeValueAsString(new WordResource[] {first, withoutLanguage, second});
+        MvcResult result = this.mockMvc.perform(MockMvcRequestBuilders.post("/word/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", iterableWithSize(3)))
+                .andExpect(jsonPath("$[*].index", contains(0, 1, 2)))
+                .andExpect(jsonPath("$[0].id", greaterThan(0)))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].id").doesNotExist())
+                .andExpect(jsonPath("$[1].error", not(blankOrNullString())))
+                .andExpect(jsonPath("$[2].id", greaterThan(0)))
+                .andReturn();
+
+        JsonNode results = new ObjectMapper().readTree(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        for (int i: new int[] {0, 2}) {
+            first.setId(results.get(i).get("id").asLong());
+            deleteResource(first);
+        }
+    }
+
+    @Test
+    public void postEmptyBatch() throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/word/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void postPutAndDelete() throws Exception {
         MvcResult result = getPostedWord();
@@ -372,4 +566,38 @@ public class WordControllerTest {
                         )
                 )));
     }
+
+    @Test
+    public void countApproximate() throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/word/count").param("approximate", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", allOf(
+                        greaterThanOrEqualTo(0), anyOf(
+                                isA(Integer.class), isA(Long.class)
+                        )
+                )));
+    }
+
+    @Test
+    public void countFiltered() throws Exception {
+        QueryData queryData = new QueryData();
+        ColumnData columnData = new ColumnData();
+        columnData.setColumn("value");
+        columnData.setRegex("%en%");
+        queryData.setColumns(List.of(columnData));
+        String json = getQueryDataJson(queryData);
+
+        MvcResult filter = this.mockMvc.perform(MockMvcRequestBuilders.post("/word/filter")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isOk())
+                .andReturn();
+        WordResource[] words = new ObjectMapper().readerFor(WordResource[].class)
+                .readValue(filter.getResponse().getContentAsString(StandardCharsets.UTF_8));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/word/count").contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isOk())
+                .andExpect(content().string(String.valueOf(words.length)));
+    }
 }
@@ -0,0 +1,98 @@
+package app.server.service;
+
+import app.server.benchmark.Measurement;
+import app.server.config.SpringWebConfig;
+import app.server.config.WebConfiguration;
+import app.server.domain.Language;
+import app.server.domain.Word;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Массовая вставка слов одной транзакцией: по одному INSERT на слово (размер пакета JDBC 1) и пакетами
+ * hibernate.jdbc.batch_size. Идентификаторы в обоих случаях выделяются блоками (pooled-lo), поэтому nextval
+ * выполняется раз в allocationSize вставок; количество выражений печатается вместе со временем.
+ * Требует выполненного db/pooled_sequences.sql. Запуск: {@code mvn test -Dtest=WordInsertBenchmark}
+ */
+@ContextConfiguration(classes = {SpringWebConfig.class, WebConfiguration.class})
+@SpringBootTest(properties = "hibernate.generate_statistics=true")
+public class WordInsertBenchmark {
+
+    private static final int WORDS = 10_000;
+    private static final int BATCH_SIZE = 50;
+    private static final int LANGUAGE_ID = 1;
+    private static final String VALUE_PREFIX = "insert benchmark ";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void bulkInsert() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        try {
+            for (int batchSize: new int[] {1, BATCH_SIZE}) {
+                statistics.clear();
+                Measurement measurement = Measurement.measure("insert " + WORDS + " words, batch " + batchSize,
+                        1, 3, () -> insert(batchSize));
+
+                long statements = statistics.getPrepareStatementCount() / 4;
+                double wordsPerSecond = WORDS / (measurement.getAverageNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+                System.out.printf("%-40s %10.0f words/s %10d statements/op%n", "", wordsPerSecond, statements);
+            }
+        } finally {
+            deleteInserted();
+        }
+    }
+
+    private void insert(int batchSize) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        try {
+            entityManager.getTransaction().begin();
+            Language language = entityManager.getReference(Language.class, LANGUAGE_ID);
+            for (int i = 0; i < WORDS; i++) {
+                Word word = new Word();
+                word.setValue(VALUE_PREFIX + i);
+                word.setLanguage(language);
+                entityManager.persist(word);
+
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    language = entityManager.getReference(Language.class, LANGUAGE_ID);
+                }
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+
+    private void deleteInserted() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.createQuery("DELETE FROM Word w WHERE w.value LIKE :prefix")
+                    .setParameter("prefix", VALUE_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package app.server.service.generators;
+
+import app.server.benchmark.Measurement;
+import app.server.benchmark.SyntheticDictionary;
+import app.server.util.Result;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Сравнение потоковой генерации xlsx (SXSSF) с генерацией через {@link XSSFWorkbook} и autoSizeColumn.
+ * Запуск: {@code mvn test -Dtest=ExcelGenerationBenchmark}
+ */
+public class ExcelGenerationBenchmark {
+
+    private static final int DICTIONARY_SIZE = 200_000;
+
+    @Test
+    public void compareWithXSSFWorkbook() throws Exception {
+        Measurement.measure("XSSFWorkbook + autoSizeColumn", 1, 3,
+                () -> generateInMemory(new SyntheticDictionary(DICTIONARY_SIZE), OutputStream.nullOutputStream()));
+        Measurement.measure("SXSSFWorkbook (window " + ExcelGeneration.DEFAULT_ROW_WINDOW + ")", 1, 3,
+                () -> new ExcelGeneration().generate("from", "to", new SyntheticDictionary(DICTIONARY_SIZE),
+                        OutputStream.nullOutputStream()));
+    }
+
+    private void generateInMemory(Iterator<Result.Definition> definitions, OutputStream stream) throws IOException {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        XSSFSheet sheet = workbook.createSheet("dictionary");
+
+        int i = 2;
+        while (definitions.hasNext()) {
+            Result.Definition definition = definitions.next();
+            XSSFRow row = sheet.createRow(i++);
+            row.createCell(0).setCellValue(definition.getKey().getWord());
+            row.createCell(1).setCellValue(definition.getKey().getPartOfSpeech().name());
+            row.createCell(2).setCellValue(definition.getValues().toString());
+        }
+        sheet.autoSizeColumn(0);
+        sheet.autoSizeColumn(1);
+        sheet.autoSizeColumn(2);
+
+        workbook.write(stream);
+        workbook.close();
+    }
+}
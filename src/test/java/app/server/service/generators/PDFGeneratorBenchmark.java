@@ -0,0 +1,51 @@
+package app.server.service.generators;
+
+import app.server.benchmark.Measurement;
+import app.server.benchmark.SyntheticDictionary;
+import app.server.service.generators.pdf.FontRegistry;
+import app.server.service.generators.pdf.FontType;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Задержка генерации одного PDF-документа при чтении шрифтов из classpath на каждый документ и при разборе
+ * из байтов, прочитанных {@link FontRegistry} один раз.
+ * Запуск: {@code mvn test -Dtest=PDFGeneratorBenchmark}
+ */
+public class PDFGeneratorBenchmark {
+
+    private static final int DICTIONARY_SIZE = 500;
+
+    @Test
+    public void compareFontLoading() throws Exception {
+        PDFGenerator perDocument = new PDFGenerator(new ParsingFontRegistry());
+        PDFGenerator shared = new PDFGenerator(new FontRegistry());
+
+        Measurement.measure("fonts parsed per document", 3, 20,
+                () -> perDocument.generate("from", "to", new SyntheticDictionary(DICTIONARY_SIZE),
+                        OutputStream.nullOutputStream()));
+        Measurement.measure("shared FontRegistry", 3, 20,
+                () -> shared.generate("from", "to", new SyntheticDictionary(DICTIONARY_SIZE),
+                        OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Прежнее поведение: файл шрифта читается из classpath заново при каждом обращении
+     */
+    private static class ParsingFontRegistry extends FontRegistry {
+
+        @Override
+        public PDType0Font load(PDDocument document, FontType type) throws IOException {
+            String name = type.name().charAt(0) + type.name().substring(1).toLowerCase();
+            String resource = "fonts/NotoSans-" + name + ".ttf";
+            try (InputStream stream = getClass().getClassLoader().getResourceAsStream(resource)) {
+                return PDType0Font.load(document, stream, true);
+            }
+        }
+    }
+}
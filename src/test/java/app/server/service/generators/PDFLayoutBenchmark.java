@@ -0,0 +1,93 @@
+package app.server.service.generators;
+
+import app.server.benchmark.Measurement;
+import app.server.benchmark.SyntheticDictionary;
+import app.server.service.generators.pdf.FontMetrics;
+import app.server.service.generators.pdf.FontRegistry;
+import app.server.service.generators.pdf.FontType;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбиение текста словаря на строки: прежний способ (split и {@link PDFont#getStringWidth} на каждое слово)
+ * и таблица ширин {@link FontMetrics}; отдельно - генерация PDF целиком.
+ * Запуск: {@code mvn test -Dtest=PDFLayoutBenchmark}
+ */
+public class PDFLayoutBenchmark {
+
+    private static final int DICTIONARY_SIZE = 100_000;
+    private static final float BORDER = 241f * 1_000 / 12;
+
+    @Test
+    public void compareLayout() throws Exception {
+        FontRegistry registry = new FontRegistry();
+        List<String> texts = new ArrayList<>(DICTIONARY_SIZE);
+        new SyntheticDictionary(DICTIONARY_SIZE).forEachRemaining(definition -> texts.add(definition.getKey().getWord()
+                + " (" + definition.getKey().getPartOfSpeech().name() + ")  - " + definition.getValues()));
+
+        try (PDDocument document = new PDDocument()) {
+            PDFont font = registry.load(document, FontType.REGULAR);
+            Measurement.measure("split + getStringWidth", 1, 5, () -> layoutWithFont(texts, font));
+        }
+
+        FontMetrics metrics = registry.getMetrics(FontType.REGULAR);
+        Measurement.measure("FontMetrics", 1, 5, () -> layoutWithMetrics(texts, metrics));
+
+        PDFGenerator generator = new PDFGenerator(registry);
+        Measurement.measure("PDFGenerator, " + DICTIONARY_SIZE + " entries", 0, 1,
+                () -> generator.generate("from", "to", new SyntheticDictionary(DICTIONARY_SIZE),
+                        OutputStream.nullOutputStream()));
+    }
+
+    private int layoutWithFont(List<String> texts, PDFont font) throws IOException {
+        int lines = 0;
+        for (String text: texts) {
+            float lineWidth = 0;
+            for (String word: text.split(" ")) {
+                String showText = word + " ";
+                float width = font.getStringWidth(showText);
+                lineWidth += width;
+                if (lineWidth >= BORDER) {
+                    lineWidth = width;
+                    lines++;
+                }
+            }
+            lines++;
+        }
+
+        return lines;
+    }
+
+    private int layoutWithMetrics(List<String> texts, FontMetrics metrics) {
+        int lines = 0;
+        float spaceWidth = metrics.getWidth(' ');
+        for (String text: texts) {
+            float lineWidth = 0;
+            int start = 0;
+            int length = text.length();
+            while (start < length) {
+                int end = text.indexOf(' ', start);
+                if (end < 0) {
+                    end = length;
+                }
+
+                float width = metrics.getWidth(text, start, end) + spaceWidth;
+                lineWidth += width;
+                if (lineWidth >= BORDER) {
+                    lineWidth = width;
+                    lines++;
+                }
+                start = end + 1;
+            }
+            lines++;
+        }
+
+        return lines;
+    }
+}